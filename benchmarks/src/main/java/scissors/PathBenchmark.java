@@ -0,0 +1,66 @@
+package scissors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// computeShortestPath 的点到点查询。distance 为种子到目标的偏移占图像宽高的比例；
+// 每次调用换一对种子和目标，Dijkstra 不会沿用上一次的最短路树
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx8g" })
+public class PathBenchmark {
+    private static final int PAIRS = 16;
+
+    @Param({ "0.25", "1", "4", "16", "50" })
+    public double megapixels;
+
+    @Param({ "0.05", "0.15", "0.3" })
+    public double distance;
+
+    @Param({ "DIJKSTRA", "ASTAR", "BIDIRECTIONAL", "DIAL" })
+    public String strategy; // PathStrategy 是包内可见的，JMH 生成的代码在别的包里，参数只能用字符串
+
+    private IntelligentScissorsPart1 processor;
+    private PathStrategy pathStrategy;
+    private final int[] seeds = new int[PAIRS * 4]; // seedX, seedY, targetX, targetY
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        LoadedImage image = SyntheticImage.ofMegapixels(megapixels);
+        processor = new IntelligentScissorsPart1(image);
+        processor.process(0.1);
+        pathStrategy = PathStrategy.valueOf(strategy);
+        int dx = (int) (distance * image.width), dy = (int) (distance * image.height);
+        Random random = new Random(11);
+        for (int i = 0; i < PAIRS; i++) {
+            int x = random.nextInt(image.width - dx), y = random.nextInt(image.height - dy);
+            seeds[i * 4] = x;
+            seeds[i * 4 + 1] = y;
+            seeds[i * 4 + 2] = x + dx;
+            seeds[i * 4 + 3] = y + dy;
+        }
+    }
+
+    @Benchmark
+    public int[] shortestPath() {
+        int i = (next++ % PAIRS) * 4;
+        return processor.computeShortestPath(seeds[i], seeds[i + 1], seeds[i + 2], seeds[i + 3], pathStrategy);
+    }
+}
@@ -0,0 +1,99 @@
+package scissors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// process() 的各个阶段分别计时，以及整个 process()。Setup 先完整处理一遍，使各阶段的输入都已就绪。
+// 模糊会原地改写灰度平面，gradients 和 process 每次先把原始灰度复制回去（复制本身也计入耗时，约占 1%）
+// 三个基准的分叉 JVM 都带 --add-modules jdk.incubator.vector（RowKernel.create() 才会选向量版本）和 -Xmx8g
+// （50 MP 时各平面、边权和索引约 4 GB，默认堆放不下）；要测标量版本时在命令行用 -jvmArgsAppend -Xmx8g 覆盖
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx8g" })
+public class PreprocessBenchmark {
+    private static final double THRESHOLD = 0.1;
+
+    @Param({ "0.25", "1", "4", "16", "50" })
+    public double megapixels;
+
+    private IntelligentScissorsPart1 processor;
+    private int[] original;
+    private double gMax;
+
+    @Setup
+    public void setup() throws IOException {
+        LoadedImage image = SyntheticImage.ofMegapixels(megapixels);
+        original = image.gray.clone();
+        processor = new IntelligentScissorsPart1(image);
+        processor.process(THRESHOLD);
+        gMax = processor.computeGradients();
+    }
+
+    @Benchmark
+    public double gradients() {
+        restorePixels();
+        return processor.computeGradients();
+    }
+
+    @Benchmark
+    public void nonMaxSuppression() {
+        processor.suppressNonMaxima();
+    }
+
+    // 归一化 f_G，并建 KD 树
+    @Benchmark
+    public void gradientMagnitude() {
+        processor.computeGradientMagnitude(gMax, THRESHOLD);
+    }
+
+    @Benchmark
+    public void kdTree() {
+        processor.buildKdTree(gMax, THRESHOLD);
+    }
+
+    // 代价模型的节点代价和方向平面
+    @Benchmark
+    public void costPlanes() {
+        processor.computeCostPlanes();
+    }
+
+    @Benchmark
+    public void graph() {
+        processor.buildGraph();
+    }
+
+    @Benchmark
+    public void rangeMax() {
+        processor.buildRangeMax();
+    }
+
+    @Benchmark
+    public void pyramid() {
+        processor.buildPyramid();
+    }
+
+    @Benchmark
+    public void process() throws IOException {
+        restorePixels();
+        processor.process(THRESHOLD);
+    }
+
+    private void restorePixels() {
+        System.arraycopy(original, 0, processor.getPixels(), 0, original.length);
+    }
+}
@@ -0,0 +1,66 @@
+package scissors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 光标吸附：KD 树、区间最大值索引与暴力搜索，在固定的一组随机位置上轮流查询
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx8g" })
+public class SnapBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({ "0.25", "1", "4", "16", "50" })
+    public double megapixels;
+
+    @Param({ "5", "25", "100" })
+    public int windowSize;
+
+    @Param({ "KD_TREE", "RANGE_MAX", "BRUTE_FORCE" })
+    public String method;
+
+    private IntelligentScissorsPart1 processor;
+    private final int[] xs = new int[QUERIES], ys = new int[QUERIES];
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        LoadedImage image = SyntheticImage.ofMegapixels(megapixels);
+        processor = new IntelligentScissorsPart1(image);
+        processor.process(0.1);
+        Random random = new Random(7);
+        for (int i = 0; i < QUERIES; i++) {
+            xs[i] = random.nextInt(image.width);
+            ys[i] = random.nextInt(image.height);
+        }
+    }
+
+    @Benchmark
+    public int[] snap() {
+        int i = next++ & (QUERIES - 1);
+        switch (method) {
+            case "KD_TREE":
+                return processor.findStrongestEdgeInNeighborhood(xs[i], ys[i], windowSize);
+            case "RANGE_MAX":
+                return processor.findStrongestEdgeRangeMax(xs[i], ys[i], windowSize);
+            default:
+                return processor.findStrongestEdgeBruteForce(xs[i], ys[i], windowSize);
+        }
+    }
+}
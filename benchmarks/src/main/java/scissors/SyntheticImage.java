@@ -0,0 +1,59 @@
+package scissors;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Random;
+
+// 合成测试图像：平滑的亮度渐变上叠加若干实心圆和矩形（提供强边缘），再加少量噪声。
+// 同样的尺寸和种子总是生成同样的图像，不需要任何图像文件
+final class SyntheticImage {
+    private SyntheticImage() {
+    }
+
+    // megapixels 百万像素、宽高比 4:3 的图像
+    static LoadedImage ofMegapixels(double megapixels) {
+        int width = (int) Math.round(Math.sqrt(megapixels * 1e6 * 4 / 3));
+        int height = (int) Math.round(megapixels * 1e6 / width);
+        return generate(width, height, 42);
+    }
+
+    private static LoadedImage generate(int width, int height, long seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        int[] gray = new int[width * height];
+
+        Random random = new Random(seed);
+        int shapes = Math.max(8, (int) ((long) width * height / 40_000));
+        int[] cx = new int[shapes], cy = new int[shapes], r = new int[shapes], level = new int[shapes];
+        boolean[] circle = new boolean[shapes];
+        for (int i = 0; i < shapes; i++) {
+            cx[i] = random.nextInt(width);
+            cy[i] = random.nextInt(height);
+            r[i] = 10 + random.nextInt(60);
+            level[i] = random.nextInt(256);
+            circle[i] = random.nextBoolean();
+        }
+        // 每行只检查与该行相交的图形，按行累加，避免 pixels x shapes 的全量循环
+        byte[] raster = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; y++) {
+            int base = y * width;
+            for (int x = 0; x < width; x++) {
+                gray[base + x] = (int) (64 + 128.0 * x / width);
+            }
+            for (int i = 0; i < shapes; i++) {
+                int dy = y - cy[i];
+                if (dy < -r[i] || dy > r[i]) continue;
+                int half = circle[i] ? (int) Math.sqrt((double) r[i] * r[i] - (double) dy * dy) : r[i];
+                int x0 = Math.max(0, cx[i] - half), x1 = Math.min(width - 1, cx[i] + half);
+                for (int x = x0; x <= x1; x++) {
+                    gray[base + x] = level[i];
+                }
+            }
+            for (int x = 0; x < width; x++) {
+                int v = Math.max(0, Math.min(255, gray[base + x] + random.nextInt(9) - 4));
+                gray[base + x] = v;
+                raster[base + x] = (byte) v;
+            }
+        }
+        return new LoadedImage(image, gray, "synthetic", 0);
+    }
+}
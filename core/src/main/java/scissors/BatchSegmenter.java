@@ -0,0 +1,306 @@
+package scissors;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 无界面的批量分割：对目录中的每幅图像读取同名的种子标注（.json 或 .csv，见 SeedAnnotations），
+// 依次连接各个种子并闭合，输出与 GUI 保存按钮相同的 output.png 式结果（轮廓内为原图，其余为黑色）。
+// 每幅图像经过 decode → preprocess → solve → rasterise → encode 五个阶段：解码和编码在 I/O 线程上，
+// 预处理、求路径和绘制在计算线程上，不同图像的 I/O 与计算互相重叠。同时在处理中的图像数不超过 maxInFlight，
+// 从解码开始占用一个名额、写完结果后释放，内存占用因此有上限。结束时输出吞吐量和各阶段的耗时统计
+//   java -cp scissors-core-headless.jar scissors.BatchSegmenter <图像目录> <输出目录>
+//        [--annotations 目录] [--workers N] [--io-threads N] [--in-flight N] [--snap 窗口] [--threshold t]
+//        [--cost-model 权重]（格式见 CostModel.parse，例如 mb 或 inverse=1,direction=0.2）
+class BatchSegmenter {
+    private static final String[] IMAGE_EXTENSIONS = { ".png", ".jpg", ".jpeg", ".bmp", ".gif" };
+    private static final String[] STAGES = { "decode", "preprocess", "solve", "rasterise", "encode", "total" };
+
+    private final File annotationDir;
+    private final File outputDir;
+    private final int workers, ioThreads, maxInFlight;
+    private int snapWindow;          // > 0 时先把每个种子吸附到窗口内梯度最大的像素（与 GUI 的 Cursor Snap 相同）
+    private double threshold = 0.1;  // process() 的高梯度阈值
+    private CostModel costModel = CostModel.fromSystemProperty();
+    private final ImageLoader loader = ImageLoader.defaultLoader();
+    private final Map<String, LatencyStats> stageLatency = new LinkedHashMap<>();
+
+    BatchSegmenter(File annotationDir, File outputDir, int workers, int ioThreads, int maxInFlight) {
+        this.annotationDir = annotationDir;
+        this.outputDir = outputDir;
+        this.workers = Math.max(1, workers);
+        this.ioThreads = Math.max(1, ioThreads);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        for (String stage : STAGES) {
+            stageLatency.put(stage, new LatencyStats());
+        }
+    }
+
+    void setSnapWindow(int snapWindow) {
+        this.snapWindow = snapWindow;
+    }
+
+    void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    void setCostModel(CostModel costModel) {
+        this.costModel = costModel;
+    }
+
+    Map<String, LatencyStats> getStageLatency() {
+        return stageLatency;
+    }
+
+    // 一幅图像在各阶段之间传递的状态；求完路径后不再引用 processor，只保留显示用的图像和路径
+    private static class Job {
+        final File image;
+        final File annotation;
+        final long start = System.nanoTime();
+        LoadedImage loaded;
+        IntelligentScissorsPart1 processor;
+        List<int[]> paths;
+        BufferedImage mask;
+
+        Job(File image, File annotation) {
+            this.image = image;
+            this.annotation = annotation;
+        }
+    }
+
+    // 处理 images 中所有有标注的图像，返回成功的数目；没有标注的图像跳过，失败的图像在 stderr 上报告
+    int run(List<File> images) throws InterruptedException {
+        if (!outputDir.exists()) {
+            outputDir.mkdirs();
+        }
+        ExecutorService io = Executors.newFixedThreadPool(ioThreads);
+        ExecutorService compute = Executors.newFixedThreadPool(workers);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        try {
+            for (File image : images) {
+                File annotation = findAnnotation(image);
+                if (annotation == null) {
+                    System.err.println("Skipped (no annotation): " + image);
+                    continue;
+                }
+                inFlight.acquire(); // 达到上限时在这里等待，不再继续解码
+                Job job = new Job(image, annotation);
+                pending.add(CompletableFuture.runAsync(() -> timed("decode", () -> decode(job)), io)
+                        .thenRunAsync(() -> {
+                            timed("preprocess", () -> preprocess(job));
+                            timed("solve", () -> solve(job));
+                            timed("rasterise", () -> rasterise(job));
+                        }, compute)
+                        .thenRunAsync(() -> timed("encode", () -> encode(job)), io)
+                        .whenComplete((ignored, error) -> {
+                            inFlight.release();
+                            if (error != null) {
+                                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                                System.err.println("Failed: " + job.image + ": " + cause.getMessage());
+                            } else {
+                                stageLatency.get("total").record(System.nanoTime() - job.start);
+                                succeeded.incrementAndGet();
+                            }
+                        }));
+            }
+            for (CompletableFuture<Void> future : pending) {
+                try {
+                    future.join();
+                } catch (RuntimeException e) {
+                    // 已在 whenComplete 中报告
+                }
+            }
+        } finally {
+            io.shutdown();
+            compute.shutdown();
+        }
+        return succeeded.get();
+    }
+
+    private void decode(Job job) throws IOException {
+        job.loaded = loader.load(job.image);
+    }
+
+    private void preprocess(Job job) throws IOException {
+        job.processor = new IntelligentScissorsPart1(job.loaded);
+        job.processor.setPyramidLevels(0); // 批处理只用精确的点到点查询，不需要金字塔
+        job.processor.setEdgeCostMode(EdgeCostMode.LAZY); // 每幅图只有几次查询，不值得预先建图
+        job.processor.setCostModel(costModel);
+        job.processor.process(threshold);
+    }
+
+    // 依次连接相邻的种子，最后从最后一个种子回到第一个种子
+    private void solve(Job job) throws IOException {
+        int[] seeds = SeedAnnotations.read(job.annotation);
+        IntelligentScissorsPart1 processor = job.processor;
+        int count = seeds.length / 2;
+        for (int i = 0; i < count; i++) {
+            int x = seeds[2 * i], y = seeds[2 * i + 1];
+            if (x < 0 || x >= processor.getWidth() || y < 0 || y >= processor.getHeight()) {
+                throw new IOException("Seed outside the image: (" + x + ", " + y + ")");
+            }
+            if (snapWindow > 0) {
+                int[] snapped = processor.findStrongestEdgeRangeMax(x, y, snapWindow);
+                seeds[2 * i] = snapped[0];
+                seeds[2 * i + 1] = snapped[1];
+            }
+        }
+        List<int[]> paths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            int[] path = processor.computeShortestPath(seeds[2 * i], seeds[2 * i + 1], seeds[2 * j], seeds[2 * j + 1]);
+            if (path.length > 0) {
+                paths.add(path);
+            }
+        }
+        job.paths = paths;
+        job.processor = null;
+    }
+
+    private void rasterise(Job job) {
+        job.mask = MaskRenderer.render(job.loaded.image, job.paths);
+        job.loaded = null;
+        job.paths = null;
+    }
+
+    private void encode(Job job) throws IOException {
+        File output = new File(outputDir, baseName(job.image) + ".png");
+        if (!ImageIO.write(job.mask, "png", output)) {
+            throw new IOException("No PNG writer available");
+        }
+        job.mask = null;
+    }
+
+    private interface Stage {
+        void run() throws IOException;
+    }
+
+    private void timed(String stage, Stage task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stageLatency.get(stage).record(System.nanoTime() - start);
+    }
+
+    private File findAnnotation(File image) {
+        File dir = annotationDir != null ? annotationDir : image.getParentFile();
+        for (String extension : new String[] { ".json", ".csv" }) {
+            File annotation = new File(dir, baseName(image) + extension);
+            if (annotation.isFile()) return annotation;
+        }
+        return null;
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    static List<File> listImages(File dir) {
+        File[] files = dir.listFiles(file -> {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            for (String extension : IMAGE_EXTENSIONS) {
+                if (name.endsWith(extension)) return file.isFile();
+            }
+            return false;
+        });
+        if (files == null) return new ArrayList<>();
+        Arrays.sort(files);
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    // 各阶段的次数、平均、p50、p99、最大耗时（毫秒），写入 batch_performance.csv
+    void writeReport(File file, int images, long elapsedNanos) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("stage,count,mean_ms,p50_ms,p99_ms,max_ms,images_per_s");
+            double imagesPerSecond = images / (elapsedNanos / 1e9);
+            for (Map.Entry<String, LatencyStats> entry : stageLatency.entrySet()) {
+                LatencyStats stats = entry.getValue();
+                writer.println(String.format(Locale.ROOT, "%s,%d,%.2f,%.2f,%.2f,%.2f,%.3f", entry.getKey(), stats.getCount(),
+                        stats.getMeanNanos() / 1e6, stats.getPercentileNanos(0.5) / 1e6,
+                        stats.getPercentileNanos(0.99) / 1e6, stats.getMaxNanos() / 1e6, imagesPerSecond));
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchSegmenter <imageDir> <outputDir> [--annotations dir] [--workers n]"
+                    + " [--io-threads n] [--in-flight n] [--snap window] [--threshold t] [--cost-model spec]");
+            System.exit(2);
+        }
+        File imageDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+        File annotationDir = null;
+        int workers = 2, ioThreads = 2, inFlight = -1, snap = 0;
+        double threshold = 0.1;
+        CostModel costModel = CostModel.fromSystemProperty();
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--annotations": annotationDir = new File(args[i + 1]); break;
+                case "--workers": workers = Integer.parseInt(args[i + 1]); break;
+                case "--io-threads": ioThreads = Integer.parseInt(args[i + 1]); break;
+                case "--in-flight": inFlight = Integer.parseInt(args[i + 1]); break;
+                case "--snap": snap = Integer.parseInt(args[i + 1]); break;
+                case "--threshold": threshold = Double.parseDouble(args[i + 1]); break;
+                case "--cost-model": costModel = CostModel.parse(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (snap > RangeMaxIndex.MAX_WINDOW) {
+            System.err.println("--snap window must be at most " + RangeMaxIndex.MAX_WINDOW);
+            System.exit(2);
+        }
+        if (inFlight < 0) {
+            inFlight = workers + ioThreads; // 计算线程都有活干，同时每个 I/O 线程还能预先解码或写出一幅
+        }
+
+        BatchSegmenter segmenter = new BatchSegmenter(annotationDir, outputDir, workers, ioThreads, inFlight);
+        segmenter.setSnapWindow(snap);
+        segmenter.setThreshold(threshold);
+        segmenter.setCostModel(costModel);
+        List<File> images = listImages(imageDir);
+        long start = System.nanoTime();
+        int done;
+        try {
+            done = segmenter.run(images);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Segmented %d images in %.2f s (%.2f images/s, workers=%d, io=%d, in-flight=%d)%n",
+                done, elapsed / 1e9, done / (elapsed / 1e9), workers, ioThreads, inFlight);
+        for (Map.Entry<String, LatencyStats> entry : segmenter.getStageLatency().entrySet()) {
+            System.out.println("  " + entry.getKey() + ": " + entry.getValue());
+        }
+        try {
+            segmenter.writeReport(new File(outputDir, "batch_performance.csv"), done, elapsed);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package scissors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// 代价图的二进制缓存：process() 算出的平面按 (灰度内容, 参数) 的 SHA-256 存成一个文件，
+// 下次打开同一幅图像时通过 FileChannel.map 读回，跳过模糊、梯度、归一化和建图。
+// 图用到的平面不复制：立即模式直接用映射的边权构造 PixelGraph（映射模式），惰性模式直接用映射的节点代价和方向平面
+// （PixelGraph.lazyMapped），只有页缓存中被搜索访问到的部分进入内存。pixels、Ix、Iy、G、f_G 是处理器构造时就分配好的
+// 工作数组（KD 树、区间最大值和导出都按数组使用），读回时直接写入这些数组，不另外分配。
+// 文件格式（小端）：头部 magic、版本、宽、高、标志、G_max、minStepCost、32 字节 key，之后依次是
+//   pixels（byte，模糊后的灰度 0..255）、Ix、Iy（short，Scharr 结果都是 |v| <= 4080 的整数）、
+//   G、f_G（float）、代价模型的节点代价 nodeCost（float）、方向区间（byte，标志 HAS_DIRECTION 时才有）、
+//   边权 costs（float，每像素 8 个，标志 HAS_COSTS 时才有）
+// 立即模式写入的文件每像素 49 或 50 字节；惰性模式不建边权，也不为写缓存而现算，文件没有 costs，每像素 17 或 18 字节。
+// 立即模式读到没有 costs 的文件时用缓存中的节点代价重建边权（只省去特征平面的计算），惰性模式读任何文件都不读 costs。
+// 写入在后台线程进行（storeAsync），先写临时文件再改名；读到不完整或 key 不符的文件当作未命中。
+// 目录中所有缓存文件的总大小不超过预算，超出时按最后使用时间（命中时更新文件的修改时间）从最久未用的开始删除
+class CostMapCache {
+    private static final int MAGIC = 0x4953434D; // "ISCM"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 5 * 4 + 2 * 4 + 32;
+    private static final int HAS_DIRECTION = 1; // 标志：代价模型有方向项，文件中有方向区间平面
+    private static final int HAS_COSTS = 2;     // 标志：文件中有边权（立即模式写入）
+    private static final int PLANE_BYTES = 1 + 2 + 2 + 4 + 4 + 4; // pixels、Ix、Iy、G、f_G、nodeCost 每像素的字节数
+    private static final long MAX_MAP = 1 << 30; // 单次映射的最大字节数（MappedByteBuffer 不能超过 2GB）
+    private static final int COST_SEGMENT_SHIFT = 25; // 边权每段映射 2^25 个像素（每像素 32 字节，即 MAX_MAP）
+    static final int PLANE_SEGMENT_SHIFT = 28;        // 节点代价和方向平面每段映射 2^28 个像素（节点代价即 MAX_MAP）
+    private static final int CONVERT_CHUNK = 1 << 22; // 需要类型转换的平面每段的元素数（临时数组的大小）
+    private static final String SUFFIX = ".costmap";
+    private static final ExecutorService WRITER = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> new Thread(r, "cost-map-cache")); // 与 DiagnosticsExporter 相同，非守护线程
+
+    private final File dir;
+    private final long budgetBytes;
+    private int hits, misses;
+
+    // 缓存中的一组平面；数组与 IntelligentScissorsPart1 中的同名字段一一对应。
+    // 读回时由调用方给出 width、height 和 pixels、Ix、Iy、G、f_G 这几个要写入的数组
+    static class Entry {
+        int width, height;
+        int[] pixels;
+        float[] Ix, Iy, G, f_G;
+        float[] nodeCost;       // 写入时必须有；读回时只有立即模式读到没有边权的文件才有
+        byte[] directionBins;   // 代价模型没有方向项时为 null
+        FloatBuffer[] mappedNodeCost;  // 惰性模式读回：映射的节点代价，每段 1 << PLANE_SEGMENT_SHIFT 个像素
+        ByteBuffer[] mappedDirection;  // 惰性模式读回且有方向项时：映射的方向区间，分段同上
+        float minStepCost;
+        PixelGraph graph;       // 写入时为当前的图；读回时只有立即模式读到有边权的文件才有
+        double G_max;
+    }
+
+    // budgetBytes 为目录中所有缓存文件的总大小上限，单个文件就超过预算时不写入
+    CostMapCache(File dir, long budgetBytes) {
+        this.dir = dir;
+        this.budgetBytes = Math.max(0, budgetBytes);
+    }
+
+    // 系统属性 scissors.costMapCacheMb 指定的预算（MB），默认 4 GB
+    static CostMapCache fromSystemProperty(File dir) {
+        return new CostMapCache(dir, Long.getLong("scissors.costMapCacheMb", 4096) << 20);
+    }
+
+    File getDir() {
+        return dir;
+    }
+
+    long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    int getHits() {
+        return hits;
+    }
+
+    int getMisses() {
+        return misses;
+    }
+
+    // key = SHA-256(宽, 高, 灰度平面, 参数字符串)。参数字符串要包含所有影响代价图的设置
+    static byte[] key(int width, int height, int[] pixels, String params) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        buffer.putInt(width).putInt(height);
+        for (int p : pixels) {
+            if (!buffer.hasRemaining()) {
+                digest.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+            buffer.put((byte) p); // 灰度都在 0..255
+        }
+        digest.update(buffer.array(), 0, buffer.position());
+        digest.update(params.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    // 未命中、文件损坏或尺寸不符时返回 false，entry 中的数组不变。命中时把 pixels、Ix、Iy、G、f_G 读入 entry 中的数组，
+    // withGraph 为 true 时（立即模式）给出 entry.graph（映射的边权）或 entry.nodeCost（文件没有边权，由调用方重建），
+    // 为 false 时（惰性边权模式）给出映射的 entry.mappedNodeCost 和 entry.mappedDirection。
+    // 校验通过后读平面时出错直接抛出：这时 entry 中的数组可能已经被部分改写
+    boolean load(byte[] key, Entry entry, boolean withGraph) throws IOException {
+        File file = fileFor(key);
+        long n = (long) entry.width * entry.height;
+        if (!file.isFile() || file.length() < HEADER_BYTES) {
+            misses++;
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            byte[] stored = new byte[32];
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getInt() != entry.width || header.getInt() != entry.height) {
+                misses++;
+                return false;
+            }
+            int flags = header.getInt();
+            boolean hasDirection = (flags & HAS_DIRECTION) != 0;
+            boolean hasCosts = (flags & HAS_COSTS) != 0;
+            float gMax = header.getFloat();
+            float minStepCost = header.getFloat();
+            header.get(stored);
+            if (!MessageDigest.isEqual(stored, key) || file.length() != fileBytes(n, hasDirection, hasCosts)) {
+                misses++;
+                return false;
+            }
+
+            entry.G_max = gMax;
+            entry.minStepCost = minStepCost;
+            long pos = HEADER_BYTES;
+            pos = readBytes(channel, pos, entry.pixels);
+            pos = readShorts(channel, pos, entry.Ix);
+            pos = readShorts(channel, pos, entry.Iy);
+            pos = readFloats(channel, pos, entry.G);
+            pos = readFloats(channel, pos, entry.f_G);
+            if (withGraph && hasCosts) {
+                pos += 4 * n + (hasDirection ? n : 0); // 特征平面只在重建图时需要，跳过
+                entry.graph = mapCosts(channel, pos, entry.width, entry.height); // 关闭 channel 后映射仍然有效
+                entry.graph.minStepCost = minStepCost;
+            } else if (withGraph) {
+                entry.nodeCost = new float[(int) n];
+                pos = readFloats(channel, pos, entry.nodeCost);
+                if (hasDirection) {
+                    entry.directionBins = new byte[(int) n];
+                    readRawBytes(channel, pos, entry.directionBins);
+                }
+            } else {
+                entry.mappedNodeCost = mapFloatPlane(channel, pos, n); // 关闭 channel 后映射仍然有效
+                pos += 4 * n;
+                if (hasDirection) {
+                    entry.mappedDirection = mapBytePlane(channel, pos, n);
+                }
+            }
+        }
+        file.setLastModified(System.currentTimeMillis()); // 最后使用时间，淘汰时按它排序
+        hits++;
+        return true;
+    }
+
+    // 在后台写入 entry（与 DiagnosticsExporter 相同的单个写线程），写入失败只输出到 stderr，不影响本次结果。
+    // 调用方在写完之前不能修改 entry 中的数组
+    Future<?> storeAsync(byte[] key, Entry entry) {
+        return WRITER.submit(() -> {
+            try {
+                store(key, entry);
+            } catch (IOException e) {
+                System.err.println("Cost map cache write failed: " + e.getMessage());
+            }
+        });
+    }
+
+    void store(byte[] key, Entry entry) throws IOException {
+        long n = (long) entry.width * entry.height;
+        boolean hasCosts = entry.graph.costs != null; // 惰性图不为写缓存现算边权
+        long bytes = fileBytes(n, entry.directionBins != null, hasCosts);
+        if (bytes > budgetBytes) {
+            return;
+        }
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File file = fileFor(key);
+        File temp = new File(dir, file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(entry.width).putInt(entry.height)
+                    .putInt((entry.directionBins != null ? HAS_DIRECTION : 0) | (hasCosts ? HAS_COSTS : 0))
+                    .putFloat((float) entry.G_max).putFloat(entry.minStepCost).put(key);
+            long pos = HEADER_BYTES;
+            pos = writeBytes(channel, pos, entry.pixels);
+            pos = writeShorts(channel, pos, entry.Ix);
+            pos = writeShorts(channel, pos, entry.Iy);
+            pos = writeFloats(channel, pos, entry.G);
+            pos = writeFloats(channel, pos, entry.f_G);
+            pos = writeFloats(channel, pos, entry.nodeCost);
+            if (entry.directionBins != null) {
+                pos = writeRawBytes(channel, pos, entry.directionBins);
+            }
+            if (hasCosts) {
+                writeFloats(channel, pos, entry.graph.costs);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        evict(file);
+    }
+
+    // 目录中的缓存文件超出预算时，从最久未用的开始删除（不删刚写入的 keep）。
+    // 其他处理器仍在映射的文件在 Windows 上删不掉，跳过，下次写入时再试
+    private void evict(File keep) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File f : files) {
+            total += f.length();
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length && total > budgetBytes; i++) {
+            long length = files[i].length();
+            if (!files[i].equals(keep) && files[i].delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private static long fileBytes(long n, boolean hasDirection, boolean hasCosts) {
+        return HEADER_BYTES + n * (PLANE_BYTES + (hasDirection ? 1 : 0)
+                + (hasCosts ? PixelGraph.DIRECTIONS * Float.BYTES : 0));
+    }
+
+    private File fileFor(byte[] key) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : key) {
+            name.append(String.format("%02x", b));
+        }
+        return new File(dir, name + SUFFIX);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long pos, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, pos, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    // 以下读写分段映射（float 平面每段不超过 MAX_MAP 字节，需要转换的平面每段 CONVERT_CHUNK 个元素），
+    // 返回下一个平面的起始位置
+
+    private static long writeBytes(FileChannel channel, long pos, int[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = Math.min(values.length - from, CONVERT_CHUNK);
+            byte[] chunk = new byte[count];
+            for (int i = 0; i < count; i++) {
+                chunk[i] = (byte) values[from + i];
+            }
+            map(channel, FileChannel.MapMode.READ_WRITE, pos, count).put(chunk);
+            from += count;
+            pos += count;
+        }
+        return pos;
+    }
+
+    private static long readBytes(FileChannel channel, long pos, int[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = Math.min(values.length - from, CONVERT_CHUNK);
+            byte[] chunk = new byte[count];
+            map(channel, FileChannel.MapMode.READ_ONLY, pos, count).get(chunk);
+            for (int i = 0; i < count; i++) {
+                values[from + i] = chunk[i] & 0xFF;
+            }
+            from += count;
+            pos += count;
+        }
+        return pos;
+    }
+
+    private static long writeRawBytes(FileChannel channel, long pos, byte[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = (int) Math.min(values.length - from, MAX_MAP);
+            map(channel, FileChannel.MapMode.READ_WRITE, pos, count).put(values, from, count);
+            from += count;
+            pos += count;
+        }
+        return pos;
+    }
+
+    private static long readRawBytes(FileChannel channel, long pos, byte[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = (int) Math.min(values.length - from, MAX_MAP);
+            map(channel, FileChannel.MapMode.READ_ONLY, pos, count).get(values, from, count);
+            from += count;
+            pos += count;
+        }
+        return pos;
+    }
+
+    private static long writeShorts(FileChannel channel, long pos, float[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = Math.min(values.length - from, CONVERT_CHUNK);
+            short[] chunk = new short[count];
+            for (int i = 0; i < count; i++) {
+                chunk[i] = (short) values[from + i];
+            }
+            map(channel, FileChannel.MapMode.READ_WRITE, pos, 2L * count).asShortBuffer().put(chunk);
+            from += count;
+            pos += 2L * count;
+        }
+        return pos;
+    }
+
+    private static long readShorts(FileChannel channel, long pos, float[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = Math.min(values.length - from, CONVERT_CHUNK);
+            short[] chunk = new short[count];
+            map(channel, FileChannel.MapMode.READ_ONLY, pos, 2L * count).asShortBuffer().get(chunk);
+            for (int i = 0; i < count; i++) {
+                values[from + i] = chunk[i];
+            }
+            from += count;
+            pos += 2L * count;
+        }
+        return pos;
+    }
+
+    private static long writeFloats(FileChannel channel, long pos, float[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = (int) Math.min(values.length - from, MAX_MAP / 4);
+            map(channel, FileChannel.MapMode.READ_WRITE, pos, 4L * count).asFloatBuffer().put(values, from, count);
+            from += count;
+            pos += 4L * count;
+        }
+        return pos;
+    }
+
+    // 立即模式：边权留在映射中，按段构造映射模式的 PixelGraph
+    private static PixelGraph mapCosts(FileChannel channel, long pos, int width, int height) throws IOException {
+        long n = (long) width * height;
+        long pixelsPerSegment = 1L << COST_SEGMENT_SHIFT;
+        FloatBuffer[] segments = new FloatBuffer[(int) ((n + pixelsPerSegment - 1) / pixelsPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            long pixels = Math.min(pixelsPerSegment, n - i * pixelsPerSegment);
+            long bytes = pixels * PixelGraph.DIRECTIONS * Float.BYTES;
+            segments[i] = map(channel, FileChannel.MapMode.READ_ONLY, pos, bytes).asFloatBuffer();
+            pos += bytes;
+        }
+        return PixelGraph.mapped(width, height, segments, COST_SEGMENT_SHIFT);
+    }
+
+    // 惰性模式：节点代价和方向区间平面按 PLANE_SEGMENT_SHIFT 分段映射
+    private static FloatBuffer[] mapFloatPlane(FileChannel channel, long pos, long n) throws IOException {
+        long pixelsPerSegment = 1L << PLANE_SEGMENT_SHIFT;
+        FloatBuffer[] segments = new FloatBuffer[(int) ((n + pixelsPerSegment - 1) / pixelsPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            long bytes = Math.min(pixelsPerSegment, n - i * pixelsPerSegment) * Float.BYTES;
+            segments[i] = map(channel, FileChannel.MapMode.READ_ONLY, pos, bytes).asFloatBuffer();
+            pos += bytes;
+        }
+        return segments;
+    }
+
+    private static ByteBuffer[] mapBytePlane(FileChannel channel, long pos, long n) throws IOException {
+        long pixelsPerSegment = 1L << PLANE_SEGMENT_SHIFT;
+        ByteBuffer[] segments = new ByteBuffer[(int) ((n + pixelsPerSegment - 1) / pixelsPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            long bytes = Math.min(pixelsPerSegment, n - i * pixelsPerSegment);
+            segments[i] = map(channel, FileChannel.MapMode.READ_ONLY, pos, bytes);
+            pos += bytes;
+        }
+        return segments;
+    }
+
+    private static long readFloats(FileChannel channel, long pos, float[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = (int) Math.min(values.length - from, MAX_MAP / 4);
+            map(channel, FileChannel.MapMode.READ_ONLY, pos, 4L * count).asFloatBuffer().get(values, from, count);
+            from += count;
+            pos += 4L * count;
+        }
+        return pos;
+    }
+}
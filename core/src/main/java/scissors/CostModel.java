@@ -0,0 +1,142 @@
+package scissors;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// live-wire 的边权模型（Mortensen & Barrett），边 p -> q 的代价为
+//   l(p, q) = (w_inverse · 1/(1+G(q)) + w_gradient · f_G(q) + w_laplacian · f_Z(q)) · |q - p| + w_direction · f_D(p, q)
+// f_G = (G_max - G) / G_max；f_Z 为拉普拉斯过零点项（过零点为 0，否则为 1）；f_D 是梯度方向平滑项：
+//   f_D = 2 / (3π) · (acos(D(p) · L) + acos(L · D(q)))，D 为垂直于梯度的单位向量，L 为 p、q 间的单位方向（与 D(p) 同侧）。
+// 前三项只取决于终点，process() 时合成为一个节点代价平面；f_D 把方向量化为 DIRECTION_BINS 个区间，
+// 按 (p 的区间, q 的区间, 方向) 预先算成一张表（已乘权重），搜索时只查表。
+// 默认模型只有 1/(1+G)，与原来的代价逐位相同。权重可以通过 -Dscissors.costModel=... 按部署调整
+final class CostModel {
+    static final int DIRECTION_BINS = 64;
+    static final int NO_DIRECTION = DIRECTION_BINS; // G = 0 的像素没有方向，两项都按 D = 0 处理
+    private static final int TABLE_ROW = (DIRECTION_BINS + 1) * PixelGraph.DIRECTIONS;
+
+    static final CostModel DEFAULT = new CostModel(1, 0, 0, 0);
+    static final CostModel MORTENSEN_BARRETT = new CostModel(0, 0.43f, 0.43f, 0.14f); // 论文中的权重
+
+    final float inverse, gradient, laplacian, direction;
+    private float[] directionTable; // 第一次用到时构建
+
+    CostModel(float inverse, float gradient, float laplacian, float direction) {
+        if (!(inverse >= 0 && gradient >= 0 && laplacian >= 0 && direction >= 0)) {
+            throw new IllegalArgumentException("Cost weights must be non-negative");
+        }
+        if (inverse + gradient + laplacian + direction == 0) {
+            throw new IllegalArgumentException("At least one cost weight must be positive");
+        }
+        this.inverse = inverse;
+        this.gradient = gradient;
+        this.laplacian = laplacian;
+        this.direction = direction;
+    }
+
+    // "default"、"mb"（Mortensen & Barrett 的权重），或 "inverse=1,gradient=0.43,laplacian=0.43,direction=0.14"
+    // 形式的权重列表（没写的权重为 0）
+    static CostModel parse(String spec) {
+        String s = spec.trim().toLowerCase(Locale.ROOT);
+        if (s.equals("default")) return DEFAULT;
+        if (s.equals("mb")) return MORTENSEN_BARRETT;
+        float[] weights = new float[4];
+        String[] names = { "inverse", "gradient", "laplacian", "direction" };
+        for (String part : s.split(",")) {
+            String[] kv = part.split("=");
+            int i = kv.length == 2 ? Arrays.asList(names).indexOf(kv[0].trim()) : -1;
+            if (i < 0) {
+                throw new IllegalArgumentException("Bad cost model term: " + part);
+            }
+            weights[i] = Float.parseFloat(kv[1].trim());
+        }
+        return new CostModel(weights[0], weights[1], weights[2], weights[3]);
+    }
+
+    // 系统属性 scissors.costModel 指定的模型，没有设置时为 DEFAULT
+    static CostModel fromSystemProperty() {
+        String spec = System.getProperty("scissors.costModel");
+        return spec == null ? DEFAULT : parse(spec);
+    }
+
+    boolean usesLaplacian() {
+        return laplacian != 0;
+    }
+
+    boolean usesDirection() {
+        return direction != 0;
+    }
+
+    // 终点 q 的节点代价（直线方向，对角线方向再乘 sqrt(2)）。权重为 0 的项不参与运算，默认模型的结果就是 baseCost(G)
+    float nodeCost(float g, float fG, boolean zeroCrossing) {
+        float cost = 0;
+        if (inverse != 0) cost += inverse * PixelGraph.baseCost(g);
+        if (gradient != 0) cost += gradient * fG;
+        if (laplacian != 0 && !zeroCrossing) cost += laplacian;
+        return cost;
+    }
+
+    // 垂直于梯度 (ix, iy) 的方向 D = (iy, -ix) 所在的区间，梯度为 0 时返回 NO_DIRECTION
+    static byte directionBin(float ix, float iy) {
+        if (ix == 0 && iy == 0) return (byte) NO_DIRECTION;
+        double angle = Math.atan2(-ix, iy) + Math.PI; // [0, 2π]
+        int bin = (int) (angle * (DIRECTION_BINS / (2 * Math.PI)));
+        return (byte) (bin == DIRECTION_BINS ? 0 : bin);
+    }
+
+    // 方向项所在表的行起点：directionRow(bin(p)) + bin(q) * 8 + dir
+    static int directionRow(int binP) {
+        return binP * TABLE_ROW;
+    }
+
+    // table[binP * TABLE_ROW + binQ * 8 + dir] = w_direction · f_D，区间取中心角度
+    synchronized float[] directionTable() {
+        if (directionTable == null) {
+            float[] table = new float[(DIRECTION_BINS + 1) * TABLE_ROW];
+            double scale = direction * 2 / (3 * Math.PI);
+            for (int binP = 0; binP <= DIRECTION_BINS; binP++) {
+                for (int binQ = 0; binQ <= DIRECTION_BINS; binQ++) {
+                    for (int dir = 0; dir < PixelGraph.DIRECTIONS; dir++) {
+                        double length = Math.hypot(PixelGraph.DX[dir], PixelGraph.DY[dir]);
+                        double lx = PixelGraph.DX[dir] / length, ly = PixelGraph.DY[dir] / length;
+                        double[] dp = unit(binP), dq = unit(binQ);
+                        if (dp[0] * lx + dp[1] * ly < 0) { // L 取与 D(p) 同侧的方向
+                            lx = -lx;
+                            ly = -ly;
+                        }
+                        double a = acos(dp[0] * lx + dp[1] * ly) + acos(lx * dq[0] + ly * dq[1]);
+                        table[binP * TABLE_ROW + binQ * PixelGraph.DIRECTIONS + dir] = (float) (scale * a);
+                    }
+                }
+            }
+            directionTable = table;
+        }
+        return directionTable;
+    }
+
+    // 方向项的最小值，与节点代价的最小值相加即为任意一步代价的下界（A* 用）
+    float minDirectionCost() {
+        if (!usesDirection()) return 0;
+        float min = Float.POSITIVE_INFINITY;
+        for (float v : directionTable()) {
+            min = Math.min(min, v);
+        }
+        return min;
+    }
+
+    private static double[] unit(int bin) {
+        if (bin == NO_DIRECTION) return new double[] { 0, 0 };
+        double angle = (bin + 0.5) * (2 * Math.PI / DIRECTION_BINS) - Math.PI;
+        return new double[] { Math.cos(angle), Math.sin(angle) };
+    }
+
+    private static double acos(double v) {
+        return Math.acos(Math.max(-1, Math.min(1, v)));
+    }
+
+    // 作为代价图缓存 key 的一部分，也用于评估输出
+    String describe() {
+        return String.format(Locale.ROOT, "inverse=%s,gradient=%s,laplacian=%s,direction=%s",
+                inverse, gradient, laplacian, direction);
+    }
+}
@@ -0,0 +1,180 @@
+package scissors;
+
+import java.util.Arrays;
+
+// 代价金字塔：第 0 层是原图的 PixelGraph，第 k 层的梯度取上一层 2x2 块的最大值（保留强边缘），
+// 再按同样的公式生成边权。查询时先在最粗一层求整条路径，然后逐层把路径放大到下一层，
+// 只在路径周围 bandRadius 像素的窄带内重新搜索，直到原分辨率。
+// levels 和 bandRadius 越大结果越接近精确解，越小越快
+class CostPyramid {
+    private final PixelGraph[] levels;
+    private final SearchWorkspace[] workspaces; // 每层一份，第一次用到时分配
+    private final int[][] bandStamp;            // 每层的窄带标记，用代际戳代替清零
+    private int bandGeneration;
+    private int settledCount; // 评估：上一次查询所有层出堆的像素总数
+
+    // G 为按行展开的梯度幅值平面，下标 y * width + x
+    CostPyramid(PixelGraph base, float[] G, int numLevels) {
+        levels = new PixelGraph[numLevels + 1];
+        levels[0] = base;
+        workspaces = new SearchWorkspace[numLevels + 1];
+        bandStamp = new int[numLevels + 1][];
+
+        int w = base.width, h = base.height;
+        float[] gradient = G;
+        for (int k = 1; k <= numLevels; k++) {
+            int cw = (w + 1) / 2, ch = (h + 1) / 2;
+            float[] coarse = new float[cw * ch];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int c = (y >> 1) * cw + (x >> 1);
+                    coarse[c] = Math.max(coarse[c], gradient[y * w + x]);
+                }
+            }
+            levels[k] = buildLevel(coarse, cw, ch);
+            gradient = coarse;
+            w = cw;
+            h = ch;
+        }
+    }
+
+    int getLevelCount() {
+        return levels.length - 1;
+    }
+
+    int getSettledCount() {
+        return settledCount;
+    }
+
+    long memoryBytes() {
+        long bytes = 0;
+        for (int k = 1; k < levels.length; k++) {
+            bytes += levels[k].memoryBytes();
+        }
+        for (int k = 0; k < levels.length; k++) {
+            if (workspaces[k] != null) bytes += workspaces[k].memoryBytes();
+            if (bandStamp[k] != null) bytes += (long) bandStamp[k].length * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    // 从 source 到 target（第 0 层像素下标）的近似最短路；useLevels 为实际使用的层数（不超过金字塔层数）
+    int[] shortestPath(int source, int target, int useLevels, int bandRadius) {
+        int top = Math.min(useLevels, levels.length - 1);
+        settledCount = 0;
+
+        int[] path = null;
+        for (int k = top; k >= 0; k--) {
+            PixelGraph g = levels[k];
+            PixelGraph base = levels[0];
+            int s = g.index(base.x(source) >> k, base.y(source) >> k);
+            int t = g.index(base.x(target) >> k, base.y(target) >> k);
+            if (path == null) {
+                path = search(k, s, t, false);
+            } else {
+                markBand(k, path, bandRadius);
+                path = search(k, s, t, true);
+            }
+            if (path.length == 0) return path;
+        }
+        return path;
+    }
+
+    // 把第 k+1 层的路径放大到第 k 层：每个粗像素对应 2x2 细像素，再向外扩 radius
+    private void markBand(int k, int[] coarsePath, int radius) {
+        PixelGraph coarse = levels[k + 1];
+        PixelGraph fine = levels[k];
+        if (bandStamp[k] == null) {
+            bandStamp[k] = new int[fine.size()];
+        }
+        int[] stamp = bandStamp[k];
+        if (++bandGeneration == Integer.MAX_VALUE) {
+            for (int[] level : bandStamp) {
+                if (level != null) Arrays.fill(level, 0);
+            }
+            bandGeneration = 1;
+        }
+        for (int p : coarsePath) {
+            int fx = coarse.x(p) * 2, fy = coarse.y(p) * 2;
+            int xStart = Math.max(0, fx - radius), xEnd = Math.min(fine.width - 1, fx + 1 + radius);
+            int yStart = Math.max(0, fy - radius), yEnd = Math.min(fine.height - 1, fy + 1 + radius);
+            for (int y = yStart; y <= yEnd; y++) {
+                for (int x = xStart; x <= xEnd; x++) {
+                    stamp[y * fine.width + x] = bandGeneration;
+                }
+            }
+        }
+    }
+
+    // 第 k 层上的 Dijkstra，inBand 为 true 时只展开窄带内的像素
+    private int[] search(int k, int source, int target, boolean inBand) {
+        PixelGraph g = levels[k];
+        if (workspaces[k] == null) {
+            workspaces[k] = new SearchWorkspace(g.size());
+        }
+        SearchWorkspace ws = workspaces[k];
+        IndexedMinHeap heap = ws.heap;
+        float[] edges = g.edgeBuffer(); // 第 0 层可能是惰性图
+        int[] offset = g.offset;
+        float[] dist = ws.dist;
+        int[] pred = ws.pred;
+        int[] stamp = bandStamp[k];
+        int band = bandGeneration;
+
+        ws.reset();
+        ws.reach(source, 0f, -1);
+        heap.insert(source, 0f);
+
+        while (!heap.isEmpty()) {
+            float d = heap.minKey();
+            int u = heap.delMin();
+            settledCount++;
+            if (u == target) {
+                return ws.pathTo(source, target);
+            }
+
+            int base = g.edgeCosts(u, edges);
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                float cost = edges[base + i];
+                if (cost == Float.POSITIVE_INFINITY) continue; // 越界方向
+                int v = u + offset[i];
+                if (inBand && stamp[v] != band) continue;    // 窄带之外
+                float newDist = d + cost;
+                if (!ws.reached(v)) {
+                    ws.reach(v, newDist, u);
+                    heap.insert(v, newDist);
+                } else if (newDist < dist[v]) {
+                    dist[v] = newDist;
+                    pred[v] = u;
+                    heap.decreaseKey(v, newDist);
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    private static PixelGraph buildLevel(float[] gradient, int w, int h) {
+        PixelGraph g = new PixelGraph(w, h);
+        float diagonal = (float) Math.sqrt(2);
+        float min = Float.POSITIVE_INFINITY;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int base = (y * w + x) * PixelGraph.DIRECTIONS;
+                for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                    int nx = x + PixelGraph.DX[i];
+                    int ny = y + PixelGraph.DY[i];
+                    if (nx >= 0 && nx < w && ny >= 0 && ny < h) {
+                        boolean isDiag = PixelGraph.DX[i] != 0 && PixelGraph.DY[i] != 0;
+                        float basecost = PixelGraph.baseCost(gradient[ny * w + nx]);
+                        g.costs[base + i] = isDiag ? basecost * diagonal : basecost;
+                        min = Math.min(min, g.costs[base + i]);
+                    } else {
+                        g.costs[base + i] = Float.POSITIVE_INFINITY;
+                    }
+                }
+            }
+        }
+        g.minStepCost = min == Float.POSITIVE_INFINITY ? 0 : min;
+        return g;
+    }
+}
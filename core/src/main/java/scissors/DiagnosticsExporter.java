@@ -0,0 +1,99 @@
+package scissors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// 中间平面的 .npy 导出：每个平面一个文件，经 1MB 的直接缓冲区分块写入 FileChannel。
+// 写出在单独的后台线程上进行；线程不是守护线程，JVM 退出前会写完，空闲 1 秒后线程自动结束
+class DiagnosticsExporter {
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final ExecutorService WRITER = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> new Thread(r, "diagnostics-export"));
+
+    // 在后台写出 pixels.npy（uint8）以及 Ix、Iy、G、f_G 的 .npy（float32），形状均为 (height, width)。
+    // 调用方在写完之前不能修改这些数组
+    static Future<?> exportNpyAsync(File dir, int width, int height, int[] pixels, float[] Ix, float[] Iy, float[] G, float[] f_G) {
+        return WRITER.submit(() -> {
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+            writeNpy(new File(dir, "pixels.npy"), width, height, pixels);
+            writeNpy(new File(dir, "Ix.npy"), width, height, Ix);
+            writeNpy(new File(dir, "Iy.npy"), width, height, Iy);
+            writeNpy(new File(dir, "G.npy"), width, height, G);
+            writeNpy(new File(dir, "f_G.npy"), width, height, f_G);
+            return null;
+        });
+    }
+
+    static void writeNpy(File file, int width, int height, float[] plane) throws IOException {
+        try (FileChannel channel = open(file)) {
+            ByteBuffer buffer = header("<f4", width, height);
+            for (int from = 0; from < plane.length; ) {
+                if (buffer.remaining() < Float.BYTES) {
+                    drain(channel, buffer);
+                }
+                int count = Math.min(plane.length - from, buffer.remaining() / Float.BYTES);
+                buffer.asFloatBuffer().put(plane, from, count);
+                buffer.position(buffer.position() + count * Float.BYTES);
+                from += count;
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    // 灰度值都在 0..255，按 uint8 写出
+    static void writeNpy(File file, int width, int height, int[] plane) throws IOException {
+        try (FileChannel channel = open(file)) {
+            ByteBuffer buffer = header("|u1", width, height);
+            for (int value : plane) {
+                if (!buffer.hasRemaining()) {
+                    drain(channel, buffer);
+                }
+                buffer.put((byte) value);
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+
+    // .npy 1.0 头部：magic、版本、小端 uint16 头长度、描述字典，用空格补齐到 64 字节的整数倍并以 '\n' 结尾
+    private static ByteBuffer header(String descr, int width, int height) {
+        String dict = "{'descr': '" + descr + "', 'fortran_order': False, 'shape': (" + height + ", " + width + "), }";
+        int unpadded = 10 + dict.length() + 1;
+        int padding = (64 - unpadded % 64) % 64;
+        StringBuilder text = new StringBuilder(dict);
+        for (int i = 0; i < padding; i++) {
+            text.append(' ');
+        }
+        text.append('\n');
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 0x93).put("NUMPY".getBytes(StandardCharsets.US_ASCII)).put((byte) 1).put((byte) 0);
+        buffer.putShort((short) text.length());
+        buffer.put(text.toString().getBytes(StandardCharsets.US_ASCII));
+        return buffer;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,168 @@
+package scissors;
+
+import java.util.Arrays;
+
+// Dial 算法：把边权量化成 1..MAX_COST 的小整数（与原始 live-wire 论文的 0..255 代价一致），
+// 用 MAX_COST + 1 个循环桶代替比较堆，插入和 decrease-key 都是 O(1)。
+// 量化带来的误差使结果不保证与浮点 Dijkstra 完全相同，评估中会与精确解对比。
+// 立即模式预先建每像素 8 字节的量化表；惰性图和映射图上不建表，出堆时按同一比例现算，结果相同
+class DialSearch {
+    static final int MAX_COST = 255;
+    private static final int NUM_BUCKETS = MAX_COST + 1; // 任意时刻队列中的距离都落在 [D, D + MAX_COST] 内
+
+    private final PixelGraph graph;
+    private final byte[] quantized; // quantized[p * 8 + dir]，无符号 1..255，越界方向为 0；惰性图和映射图上为 null
+    private float scale;            // 边权乘以 scale 后取整即为量化代价
+    private final int[] dist, pred;
+    private final int[] next, prev;  // 桶内双向链表
+    private final int[] heads = new int[NUM_BUCKETS];
+    private final int[] stamp;       // 代际戳：本次查询是否到达过
+    private final int[] settledStamp;
+    private int generation = 1;
+    private int settledCount; // 评估：上一次查询出堆的像素数
+
+    DialSearch(PixelGraph graph) {
+        this.graph = graph;
+        int size = graph.size();
+        // 只有边权在堆数组中时才预先量化成表；惰性图和映射图出堆时按同一比例现算，不再分配每像素 8 字节
+        quantized = graph.costs != null ? new byte[size * PixelGraph.DIRECTIONS] : null;
+        dist = new int[size];
+        pred = new int[size];
+        next = new int[size];
+        prev = new int[size];
+        stamp = new int[size];
+        settledStamp = new int[size];
+        quantize();
+    }
+
+    // 线性量化，比例取 1/minStepCost 与 MAX_COST/maxCost 的几何平均：强边缘之间仍有区分，
+    // 只有很弱的边被截断到 MAX_COST（按最大值缩放时强边缘全部变成 1，路径代价多出 10%–15%）。
+    // 至少为 1，避免出现零代价边
+    // 惰性图上逐像素现算边权求比例，不建量化表
+    private void quantize() {
+        float[] edges = graph.edgeBuffer();
+        int size = graph.size();
+        float maxCost = 0;
+        for (int p = 0; p < size; p++) {
+            int base = graph.edgeCosts(p, edges);
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                float c = edges[base + i];
+                if (c != Float.POSITIVE_INFINITY && c > maxCost) maxCost = c;
+            }
+        }
+        scale = maxCost == 0 ? 0 : graph.minStepCost == 0 ? MAX_COST / maxCost // 有零代价边时只按最大值缩放
+                : (float) Math.sqrt(MAX_COST / maxCost / graph.minStepCost);
+        if (quantized == null) return;
+        for (int p = 0; p < size; p++) {
+            int base = graph.edgeCosts(p, edges);
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                quantized[p * PixelGraph.DIRECTIONS + i] = (byte) quantize(edges[base + i]);
+            }
+        }
+    }
+
+    // 越界方向（+Infinity）为 0
+    private int quantize(float c) {
+        return c == Float.POSITIVE_INFINITY ? 0 : Math.max(1, Math.min(MAX_COST, Math.round(c * scale)));
+    }
+
+    int[] shortestPath(int source, int target) {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(settledStamp, 0);
+            generation = 1;
+        }
+        Arrays.fill(heads, -1);
+        int gen = generation;
+        byte[] q = quantized;
+        float[] edges = q == null ? graph.edgeBuffer() : null;
+        int[] offset = graph.offset;
+        int settled = 0;
+        int queued = 1;
+
+        stamp[source] = gen;
+        dist[source] = 0;
+        pred[source] = -1;
+        push(source, 0);
+
+        int current = 0; // 当前扫描到的距离
+        while (queued > 0) {
+            int bucket = current % NUM_BUCKETS;
+            int u = heads[bucket];
+            if (u < 0) {
+                current++;
+                continue;
+            }
+            remove(u, bucket);
+            queued--;
+            settledStamp[u] = gen;
+            settled++;
+            if (u == target) {
+                settledCount = settled;
+                return pathTo(source, target);
+            }
+
+            int base = q != null ? u * PixelGraph.DIRECTIONS : graph.edgeCosts(u, edges);
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                int cost = q != null ? q[base + i] & 0xFF : quantize(edges[base + i]);
+                if (cost == 0) continue; // 越界方向
+                int v = u + offset[i];
+                int newDist = current + cost;
+                if (stamp[v] != gen) {
+                    stamp[v] = gen;
+                    dist[v] = newDist;
+                    pred[v] = u;
+                    push(v, newDist);
+                    queued++;
+                } else if (settledStamp[v] != gen && newDist < dist[v]) {
+                    remove(v, dist[v] % NUM_BUCKETS);
+                    dist[v] = newDist;
+                    pred[v] = u;
+                    push(v, newDist);
+                }
+            }
+        }
+        settledCount = settled;
+        return new int[0];
+    }
+
+    int getSettledCount() {
+        return settledCount;
+    }
+
+    long memoryBytes() {
+        return (quantized == null ? 0 : quantized.length) + (long) dist.length * Integer.BYTES * 6;
+    }
+
+    private void push(int v, int d) {
+        int bucket = d % NUM_BUCKETS;
+        int head = heads[bucket];
+        next[v] = head;
+        prev[v] = -1;
+        if (head >= 0) prev[head] = v;
+        heads[bucket] = v;
+    }
+
+    private void remove(int v, int bucket) {
+        if (prev[v] >= 0) {
+            next[prev[v]] = next[v];
+        } else {
+            heads[bucket] = next[v];
+        }
+        if (next[v] >= 0) {
+            prev[next[v]] = prev[v];
+        }
+    }
+
+    private int[] pathTo(int source, int target) {
+        int length = 1;
+        for (int v = target; v != source; v = pred[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target, i = length - 1; i >= 0; v = pred[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+}
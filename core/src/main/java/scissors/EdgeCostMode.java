@@ -0,0 +1,10 @@
+package scissors;
+
+// 边权的计算方式。三种方式求出的路径完全相同，区别只在于 process() 的耗时、内存和每次出堆的开销
+enum EdgeCostMode {
+    EAGER,     // process() 时为每个像素算好 8 个方向的边权（buildGraph），搜索时直接读数组
+    LAZY,      // 不建边权数组，搜索时从代价模型的特征平面现算边权：只多占节点代价平面（4 B/px）
+               // 和方向区间平面（有方向项时 1 B/px），立即模式的边权是 32 B/px。
+               // 开启代价图缓存时写入的文件没有边权（17 或 18 B/px），不为写缓存现算；命中时两个平面直接用映射
+    LAZY_MEMO  // 同 LAZY，但按 64x64 分块记忆算过的边权，反复访问同一区域时不再重算
+}
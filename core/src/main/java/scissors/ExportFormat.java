@@ -0,0 +1,7 @@
+package scissors;
+
+// process() 之后导出中间平面（pixels、Ix、Iy、G、f_G）的格式，默认不导出
+enum ExportFormat {
+    CSV, // 原来的文本格式，每个值 "%.6f"，在调用线程上同步写出
+    NPY  // NumPy .npy 二进制（numpy.load 可直接读取），在后台线程上通过 NIO 缓冲区流式写出
+}
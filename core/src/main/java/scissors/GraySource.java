@@ -0,0 +1,130 @@
+package scissors;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+// 按区域随机读取的灰度图像，分块引擎 TiledCostMap 用它代替整幅的 pixels 数组。
+// 三种实现：内存中的数组（小图、与整图引擎对照用）、内存映射的 8 位原始灰度文件（整张切片图像，
+// 只有被读到的页才进入内存）、以及按坐标生成的合成图像（评估用，不需要任何文件）。
+// 映射文件的实现持有文件句柄，用完要 close()；交给 TiledCostMap 后由它在关闭时一并关闭
+interface GraySource extends Closeable {
+    int width();
+
+    int height();
+
+    // 把 [x0, x0+w) x [y0, y0+h) 的灰度按行写入 out（下标 (y-y0) * w + (x-x0)），区域必须在图像内
+    void read(int x0, int y0, int w, int h, int[] out);
+
+    // 数组和合成图像不持有资源
+    @Override
+    default void close() throws IOException {
+    }
+
+    static GraySource ofArray(int[] gray, int width, int height) {
+        return new ArrayGraySource(gray, width, height);
+    }
+
+    // 无文件头的 8 位灰度文件，按行存放（例如 vips/ImageMagick 导出的 .gray / .raw）
+    static GraySource mapRaw(File file, int width, int height) throws IOException {
+        return new MappedGraySource(file, width, height);
+    }
+}
+
+class ArrayGraySource implements GraySource {
+    private final int[] gray;
+    private final int width, height;
+
+    ArrayGraySource(int[] gray, int width, int height) {
+        this.gray = gray;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void read(int x0, int y0, int w, int h, int[] out) {
+        for (int y = 0; y < h; y++) {
+            System.arraycopy(gray, (y0 + y) * width + x0, out, y * w, w);
+        }
+    }
+}
+
+// 一个 MappedByteBuffer 最多 2 GB，按整行分成若干段映射（100k x 100k 的图像约 5 段），每段在第一次读到时才映射
+class MappedGraySource implements GraySource {
+    private final FileChannel channel;
+    private final int width, height;
+    private final int rowsPerChunk;
+    private final MappedByteBuffer[] chunks;
+
+    MappedGraySource(File file, int width, int height) throws IOException {
+        long expected = (long) width * height;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        if (raf.length() < expected) {
+            raf.close();
+            throw new IOException("Raw file too small for " + width + "x" + height + ": " + file);
+        }
+        this.channel = raf.getChannel();
+        this.width = width;
+        this.height = height;
+        this.rowsPerChunk = Math.max(1, Integer.MAX_VALUE / width);
+        this.chunks = new MappedByteBuffer[(height + rowsPerChunk - 1) / rowsPerChunk];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void read(int x0, int y0, int w, int h, int[] out) {
+        for (int y = 0; y < h; y++) {
+            int row = y0 + y;
+            MappedByteBuffer chunk = chunk(row / rowsPerChunk);
+            int offset = (row % rowsPerChunk) * width + x0;
+            int base = y * w;
+            for (int x = 0; x < w; x++) {
+                out[base + x] = chunk.get(offset + x) & 0xFF;
+            }
+        }
+    }
+
+    // 关闭文件并丢掉映射段的引用；映射本身要等缓冲区被回收才解除
+    @Override
+    public synchronized void close() throws IOException {
+        Arrays.fill(chunks, null);
+        channel.close();
+    }
+
+    private synchronized MappedByteBuffer chunk(int index) {
+        if (chunks[index] == null) {
+            long start = (long) index * rowsPerChunk * width;
+            long length = Math.min((long) rowsPerChunk, height - (long) index * rowsPerChunk) * width;
+            try {
+                chunks[index] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return chunks[index];
+    }
+}
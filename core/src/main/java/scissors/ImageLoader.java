@@ -0,0 +1,40 @@
+package scissors;
+
+import java.io.File;
+import java.io.IOException;
+
+// 可替换的图像解码后端：
+//   imageio — ImageIO 解码后直接读取栅格的 DataBufferByte / DataBufferInt，不再逐像素调用 getRGB
+//   stb     — LWJGL 的 stb_image 解码到堆外 ByteBuffer（需要 lib/ 中的 lwjgl、lwjgl-stb 及对应平台的 natives）
+// 默认用 imageio；stb 需要通过系统属性 scissors.imageLoader=stb 显式选择：它总是按 RGB 解码（丢弃 alpha），
+// 灰度和调色板 PNG 的灰度平面也不保证与 ImageIO 的颜色转换结果相同，会改变代价图和路径
+interface ImageLoader {
+    LoadedImage load(File file) throws IOException;
+
+    String name();
+
+    static ImageLoader defaultLoader() {
+        String name = System.getProperty("scissors.imageLoader");
+        if (name != null) {
+            ImageLoader loader = create(name);
+            if (loader != null) return loader;
+        }
+        return new RasterImageLoader();
+    }
+
+    // 按名字创建后端，不可用时返回 null
+    static ImageLoader create(String name) {
+        if ("imageio".equalsIgnoreCase(name)) {
+            return new RasterImageLoader();
+        }
+        if ("stb".equalsIgnoreCase(name)) {
+            try {
+                // 反射加载：classpath 上没有 LWJGL 或缺少本平台的 natives 时退回 imageio
+                return (ImageLoader) Class.forName("scissors.StbImageLoader").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
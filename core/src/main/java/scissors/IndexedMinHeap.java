@@ -0,0 +1,104 @@
+package scissors;
+
+import java.util.Arrays;
+
+// 索引最小堆（4 叉）：元素为像素下标，优先级为 float，不装箱，可反复 clear 复用
+class IndexedMinHeap {
+    private final int[] nodes;  // 堆位置 -> 像素下标
+    private final float[] keys; // 与 nodes 平行存放的优先级
+    private final int[] pos;    // 像素下标 -> 堆位置，-1 表示不在堆中
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        nodes = new int[capacity];
+        keys = new float[capacity];
+        pos = new int[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int v) {
+        return pos[v] >= 0;
+    }
+
+    float minKey() {
+        return keys[0];
+    }
+
+    void insert(int v, float key) {
+        siftUp(size++, v, key);
+    }
+
+    void decreaseKey(int v, float key) {
+        siftUp(pos[v], v, key);
+    }
+
+    int delMin() {
+        int min = nodes[0];
+        pos[min] = -1;
+        int last = --size;
+        if (last > 0) {
+            siftDown(0, nodes[last], keys[last]);
+        }
+        return min;
+    }
+
+    // 只清理仍在堆中的元素，代价与堆大小成正比而不是与图大小成正比
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[nodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    long memoryBytes() {
+        return (long) nodes.length * (Integer.BYTES + Float.BYTES + Integer.BYTES);
+    }
+
+    private void siftUp(int i, int v, float key) {
+        while (i > 0) {
+            int parent = (i - 1) >> 2;
+            float parentKey = keys[parent];
+            if (key >= parentKey) break;
+            nodes[i] = nodes[parent];
+            keys[i] = parentKey;
+            pos[nodes[i]] = i;
+            i = parent;
+        }
+        nodes[i] = v;
+        keys[i] = key;
+        pos[v] = i;
+    }
+
+    private void siftDown(int i, int v, float key) {
+        int n = size;
+        while (true) {
+            int first = (i << 2) + 1;
+            if (first >= n) break;
+            int best = first;
+            float bestKey = keys[first];
+            int end = Math.min(first + 4, n);
+            for (int c = first + 1; c < end; c++) {
+                if (keys[c] < bestKey) {
+                    best = c;
+                    bestKey = keys[c];
+                }
+            }
+            if (bestKey >= key) break;
+            nodes[i] = nodes[best];
+            keys[i] = bestKey;
+            pos[nodes[i]] = i;
+            i = best;
+        }
+        nodes[i] = v;
+        keys[i] = key;
+        pos[v] = i;
+    }
+}
@@ -0,0 +1,1827 @@
+package scissors;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import edu.princeton.cs.algs4.IndexMinPQ;
+
+// 高梯度像素的静态 KD 树：所有点一次性批量建树（按 x / y 交替取中位数划分），树是平衡的，深度约 log2(n)。
+// 不用节点对象，子树 [lo, hi) 的根存放在 mid = (lo + hi) / 2，左子树的坐标都不大于它，右子树都不小于它。
+// subtreeMax[mid] 记录整个子树的最大梯度，查询时跳过与窗口不相交或最大梯度已不可能超过当前最优的子树，
+// 先进入最大梯度较大的一侧，尽早找到较强的候选点
+class KDTree {
+    private final int size;
+    private final int[] xs, ys;
+    private final float[] gradient;
+    private final float[] subtreeMax;
+
+    private int minX, maxX, minY, maxY; // 当前查询的窗口
+    private int best;                   // 当前查询的最优点，-1 表示还没有
+
+    private int nodesVisited; // 评估：记录节点访问次数
+
+    // 接管传入的数组（前 count 个元素有效），建树时会重新排列
+    KDTree(int[] xs, int[] ys, float[] gradient, int count) {
+        this.size = count;
+        this.xs = xs;
+        this.ys = ys;
+        this.gradient = gradient;
+        this.subtreeMax = new float[count];
+        build(0, count, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getX(int node) {
+        return xs[node];
+    }
+
+    public int getY(int node) {
+        return ys[node];
+    }
+
+    public void resetNodesVisited() {
+        nodesVisited = 0;
+    }
+
+    // 获取节点访问次数
+    public int getNodesVisited() {
+        return nodesVisited;
+    }
+
+    private float build(int lo, int hi, int depth) {
+        if (lo >= hi) return Float.NEGATIVE_INFINITY;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, (depth & 1) == 0 ? xs : ys);
+        float max = Math.max(gradient[mid], Math.max(build(lo, mid, depth + 1), build(mid + 1, hi, depth + 1)));
+        subtreeMax[mid] = max;
+        return max;
+    }
+
+    // 快速选择：让 key[k] 成为 [lo, hi] 中第 k 小，左边都不大于它、右边都不小于它
+    private void select(int lo, int hi, int k, int[] key) {
+        while (lo < hi) {
+            int pivot = key[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[i] < pivot) i++;
+                while (key[j] > pivot) j--;
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int tx = xs[i]; xs[i] = xs[j]; xs[j] = tx;
+        int ty = ys[i]; ys[i] = ys[j]; ys[j] = ty;
+        float tg = gradient[i]; gradient[i] = gradient[j]; gradient[j] = tg;
+    }
+
+    // 以 (cx, cy) 为中心、边长 windowSize 的窗口内梯度最大的点，返回节点下标（用 getX / getY 取坐标），没有时返回 -1。
+    // 梯度相同时取光栅顺序靠前的点，与暴力搜索的结果一致
+    public int findStrongestInRange(int cx, int cy, int windowSize) {
+        int half = windowSize / 2;
+        minX = cx - half;
+        maxX = cx + half;
+        minY = cy - half;
+        maxY = cy + half;
+        best = -1;
+        search(0, size, 0);
+        return best;
+    }
+
+    private void search(int lo, int hi, int depth) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (best >= 0 && subtreeMax[mid] < gradient[best]) return; // 子树中没有更强的点
+        nodesVisited++;
+
+        int x = xs[mid], y = ys[mid];
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY && better(mid)) {
+            best = mid;
+        }
+        int split = (depth & 1) == 0 ? x : y;
+        boolean searchLeft = ((depth & 1) == 0 ? minX : minY) <= split;
+        boolean searchRight = ((depth & 1) == 0 ? maxX : maxY) >= split;
+        float leftMax = lo < mid ? subtreeMax[(lo + mid) >>> 1] : Float.NEGATIVE_INFINITY;
+        float rightMax = mid + 1 < hi ? subtreeMax[(mid + 1 + hi) >>> 1] : Float.NEGATIVE_INFINITY;
+        if (leftMax >= rightMax) {
+            if (searchLeft) search(lo, mid, depth + 1);
+            if (searchRight) search(mid + 1, hi, depth + 1);
+        } else {
+            if (searchRight) search(mid + 1, hi, depth + 1);
+            if (searchLeft) search(lo, mid, depth + 1);
+        }
+    }
+
+    private boolean better(int node) {
+        if (best < 0 || gradient[node] > gradient[best]) return true;
+        return gradient[node] == gradient[best]
+                && (ys[node] < ys[best] || (ys[node] == ys[best] && xs[node] < xs[best]));
+    }
+}
+
+public class IntelligentScissorsPart1 {
+    // Scharr 核 SX = {{-3, 0, 3}, {-10, 0, 10}, {-3, 0, 3}}，SY 为其转置，展开写在 RowKernel 中
+    private static final int BAND_HEIGHT = 64; // 各阶段每个任务负责的行数（条带高度）
+
+    private int width, height;
+    private int[] pixels;             // 灰度平面，下标 y * width + x（与 PixelGraph 一致）
+    private float[] Ix, Iy, G, f_G;
+    private PixelGraph graph;
+    private ShortestPathEngine pathEngine;
+    private SeedTree seedTree; // 种子模式下以当前种子为根的最短路树
+    private SeedTreeCache seedTreeCache = SeedTreeCache.fromSystemProperty(); // 展开完毕的种子树，撤销和回到旧种子时复用
+    private PathStrategy pathStrategy = PathStrategy.DIJKSTRA; // 点到点查询默认使用的策略
+    private RegionSearch regionSearch;
+    private int searchMargin = -1; // >= 0 时点到点查询只在外接矩形 + margin 的区域内搜索
+    private CostPyramid pyramid;
+    private RangeMaxIndex rangeMax;    // 光标吸附用的区间最大值索引，process() 时构建
+    private int pyramidLevels = 3;     // 金字塔层数，第一次金字塔查询时才构建，0 表示不构建
+    private int pyramidBandRadius = 8; // 逐层细化时路径周围窄带的半径（像素）
+    private int unoptimizedSettledCount; // 评估：未优化版本出堆的像素数
+    private KDTree kdTree;
+    private int kdTreeNodes;           // 最近一次建 KD 树插入的节点数
+    private RowKernel rowKernel = RowKernel.create(); // 模糊与梯度的逐行卷积核，向量 API 可用时为向量版本
+    private boolean nonMaxSuppression;  // 是否对 G 做非极大值抑制（细化边缘），默认关闭
+    private EdgeCostMode edgeCostMode = EdgeCostMode.EAGER; // 边权在 process() 时全部算好，还是搜索时现算
+    private CostModel costModel = CostModel.fromSystemProperty(); // 边权公式中各项的权重
+    private float[] nodeCost;     // 代价模型的节点代价平面（computeCostPlanes）
+    private byte[] directionBins; // 梯度方向的量化区间，模型没有方向项时为 null
+    private float minStepCost;    // 任意一步代价的下界
+    private float[] suppressed;         // 非极大值抑制的输出平面，与 G 交替使用
+    private CostMapCache costMapCache;  // 代价图缓存，null 表示关闭
+    private ExportFormat exportFormat;  // process() 后导出中间平面的格式，null 表示不导出（默认）
+    private String exportDir = "output";
+    private Future<?> pendingExport;    // 后台 .npy 导出，写完之前不能再修改各平面
+    private Future<?> pendingCacheStore; // 后台的代价图缓存写入，同上
+    private final Map<String, Long> stageTimings = new LinkedHashMap<>(); // 各阶段最近一次的耗时（纳秒）
+
+    public IntelligentScissorsPart1(String imagePath) throws IOException {
+        this(ImageLoader.defaultLoader().load(new File(imagePath)));
+    }
+
+    // 使用已经解码好的图像（GUI 解码一次，显示和处理共用）；灰度平面直接作为 pixels 使用
+    IntelligentScissorsPart1(LoadedImage image) {
+        this.width = image.width;
+        this.height = image.height;
+        this.pixels = image.gray;
+        this.Ix = new float[width * height];
+        this.Iy = new float[width * height];
+        this.G = new float[width * height];
+        this.f_G = new float[width * height];
+        stageTimings.put("decode", image.decodeNanos);
+    }
+
+    // process() 的各阶段方法都是包内可见的，benchmarks 模块中的 JMH 基准直接调用它们
+
+    // 融合流水线：模糊、Scharr 梯度、梯度幅值和最大值在一次遍历中完成。图像按行分成高 BAND_HEIGHT 的条带，
+    // 每个条带只保留 3 行原始灰度和 3 行模糊结果的滚动窗口，不再分配整幅的临时平面。
+    // 模糊结果写回 pixels（与原来的逐阶段版本一致），条带边界外的两行原始灰度在启动前先复制出来，
+    // 避免相邻条带已经写回的模糊值被当成原始值读取。返回 G 的最大值
+    double computeGradients() {
+        if (width < 3 || height < 3) {
+            Arrays.fill(Ix, 0);
+            Arrays.fill(Iy, 0);
+            Arrays.fill(G, 0);
+            return 0;
+        }
+        int bands = bandCount(height - 2); // 只有第 1..height-2 行有梯度
+        int[][] halos = new int[bands][];
+        for (int b = 0; b < bands; b++) {
+            int startY = 1 + b * BAND_HEIGHT;
+            int endY = Math.min(height - 1, startY + BAND_HEIGHT);
+            halos[b] = copyHalo(startY, endY);
+        }
+
+        double[] localMaxG = new double[bands];
+        runStage("gradients", bands, b -> {
+            int startY = 1 + b * BAND_HEIGHT;
+            int endY = Math.min(height - 1, startY + BAND_HEIGHT);
+            localMaxG[b] = computeGradientBand(startY, endY, halos[b]);
+        });
+
+        for (int x = 0; x < width; x++) {
+            Ix[x] = Iy[x] = G[x] = 0;
+            int last = (height - 1) * width + x;
+            Ix[last] = Iy[last] = G[last] = 0;
+        }
+        double max = 0;
+        for (double m : localMaxG) {
+            max = Math.max(max, m);
+        }
+        return max;
+    }
+
+    // 条带 [startY, endY) 之外、计算时要用到的原始灰度行：startY-2、startY-1、endY、endY+1（越界的留空）
+    private int[] copyHalo(int startY, int endY) {
+        int[] halo = new int[4 * width];
+        int[] rows = {startY - 2, startY - 1, endY, endY + 1};
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] >= 0 && rows[i] < height) {
+                System.arraycopy(pixels, rows[i] * width, halo, i * width, width);
+            }
+        }
+        return halo;
+    }
+
+    // 计算条带 [startY, endY) 的 Ix、Iy、G，并把这些行的模糊结果写回 pixels，返回条带内 G 的最大值
+    private double computeGradientBand(int startY, int endY, int[] halo) {
+        RowKernel kernel = rowKernel;
+        int w = width;
+        int[][] raw = new int[3][w];     // 原始灰度滚动窗口，第 r 行在 raw[(r + 3) % 3]
+        int[][] blurred = new int[3][w]; // 模糊结果滚动窗口
+        double max = 0;
+
+        // 需要模糊后的第 startY-1 .. endY 行，模糊第 r 行要用到原始的 r-1 .. r+1 行
+        loadRawRow(startY - 2, startY, endY, halo, raw[(startY - 2 + 3) % 3]);
+        loadRawRow(startY - 1, startY, endY, halo, raw[(startY - 1 + 3) % 3]);
+        for (int r = startY - 1; r <= endY; r++) {
+            int[] above = raw[(r - 1 + 3) % 3];
+            int[] row = raw[r % 3];
+            int[] below = raw[(r + 1) % 3];
+            loadRawRow(r + 1, startY, endY, halo, below);
+
+            int[] out = blurred[r % 3];
+            if (r == 0 || r == height - 1) {
+                System.arraycopy(row, 0, out, 0, w); // 边界行不模糊
+            } else {
+                out[0] = row[0];
+                out[w - 1] = row[w - 1];
+                kernel.blurRow(above, row, below, out, w);
+            }
+            if (r >= startY && r < endY) {
+                System.arraycopy(out, 0, pixels, r * w, w);
+            }
+
+            // 模糊后的 r-2 .. r 行齐了，计算第 r-1 行的梯度
+            int y = r - 1;
+            if (y < startY) continue;
+            int[] p0 = blurred[(y - 1) % 3], p1 = blurred[y % 3], p2 = blurred[(y + 1) % 3];
+            int base = y * w;
+            Ix[base] = Iy[base] = G[base] = 0;
+            Ix[base + w - 1] = Iy[base + w - 1] = G[base + w - 1] = 0;
+            max = Math.max(max, kernel.gradientRow(p0, p1, p2, Ix, Iy, G, base, w));
+        }
+        return max;
+    }
+
+    // 原始灰度第 r 行：条带内的行直接从 pixels 读（还没被写回），条带外的行从 halo 读
+    private void loadRawRow(int r, int startY, int endY, int[] halo, int[] dest) {
+        if (r < 0 || r >= height) return;
+        if (r >= startY && r < endY) {
+            System.arraycopy(pixels, r * width, dest, 0, width);
+        } else {
+            int slot = r < startY ? r - (startY - 2) : 2 + r - endY;
+            System.arraycopy(halo, slot * width, dest, 0, width);
+        }
+    }
+
+    // 非极大值抑制：沿梯度方向比较两侧邻居，不是局部最大的像素置 0。
+    // 只读 G、只写另一个平面，结束后两者交换，结果与线程数和调度无关。
+    // 方向用 |Iy| 与 |Ix|·tan(22.5°)、|Ix|·tan(67.5°) 比较来分成水平、垂直和两条对角线，不调用 atan2
+    void suppressNonMaxima() {
+        if (width < 3 || height < 3) return;
+        if (suppressed == null || suppressed.length != G.length) {
+            suppressed = new float[G.length];
+        }
+        float[] in = G, out = suppressed;
+        final float tan22 = 0.41421356f, tan67 = 2.41421356f;
+        int w = width;
+
+        runStage("nms", bandCount(height), b -> {
+            int endY = Math.min(height, (b + 1) * BAND_HEIGHT);
+            for (int y = b * BAND_HEIGHT; y < endY; y++) {
+                int row = y * w;
+                if (y == 0 || y == height - 1) {
+                    System.arraycopy(in, row, out, row, w);
+                    continue;
+                }
+                out[row] = in[row];
+                out[row + w - 1] = in[row + w - 1];
+                for (int x = 1; x < w - 1; x++) {
+                    int i = row + x;
+                    float ix = Ix[i], iy = Iy[i];
+                    float ax = Math.abs(ix), ay = Math.abs(iy);
+                    int step; // 梯度方向上相邻像素的下标差
+                    if (ay <= ax * tan22) {
+                        step = 1;                               // 水平
+                    } else if (ay >= ax * tan67) {
+                        step = w;                               // 垂直
+                    } else if ((ix > 0) == (iy > 0)) {
+                        step = w + 1;                           // 右下—左上
+                    } else {
+                        step = w - 1;                           // 左下—右上
+                    }
+                    float g = in[i];
+                    out[i] = g >= in[i + step] && g >= in[i - step] ? g : 0;
+                }
+            }
+        });
+        suppressed = in;
+        G = out;
+    }
+
+    // f_G 归一化（只做一遍），并把高梯度像素插入 KD 树
+    void computeGradientMagnitude(double G_max, double thresholdFraction) {
+        runStage("normalize", bandCount(height), b -> {
+            int start = b * BAND_HEIGHT * width;
+            int end = Math.min(height, (b + 1) * BAND_HEIGHT) * width;
+            for (int i = start; i < end; i++) {
+                f_G[i] = G_max == 0 ? 0 : (float) ((G_max - G[i]) / G_max);
+            }
+        });
+
+        buildKdTree(G_max, thresholdFraction);
+    }
+
+    // Build KD-tree for high-gradient pixels：先收集超过阈值的像素，再一次性建成平衡树
+    void buildKdTree(double G_max, double thresholdFraction) {
+        long startTime = System.nanoTime();
+        double threshold = G_max * thresholdFraction;
+        int nodeCount = 0; // 记录插入的节点数
+        for (float g : G) {
+            if (g > threshold) {
+                nodeCount++;
+            }
+        }
+        int[] xs = new int[nodeCount];
+        int[] ys = new int[nodeCount];
+        float[] gradient = new float[nodeCount];
+        int n = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (G[y * width + x] > threshold) {
+                    xs[n] = x;
+                    ys[n] = y;
+                    gradient[n] = G[y * width + x];
+                    n++;
+                }
+            }
+        }
+        kdTree = new KDTree(xs, ys, gradient, nodeCount);
+        stageTimings.put("kdTree", System.nanoTime() - startTime);
+        kdTreeNodes = nodeCount;
+    }
+
+    private static int bandCount(int rows) {
+        return (Math.max(rows, 0) + BAND_HEIGHT - 1) / BAND_HEIGHT;
+    }
+
+    // 在共用的 ProcessingEngine 上并行执行一个阶段（task(b) 处理第 b 个条带），记录耗时
+    private void runStage(String stage, int bands, IntConsumer task) {
+        stageTimings.put(stage, ProcessingEngine.shared().forEach(bands, task));
+    }
+
+    // 代价模型的特征平面，按条带并行计算：节点代价（1/(1+G)、f_G、拉普拉斯过零点三项按权重合成，见 CostModel）
+    // 和方向区间（只在模型有方向项时计算）。之后 buildGraph 或惰性图的搜索只需查这些平面和方向表。
+    // 同时求出任意一步代价的下界 minStepCost（节点代价的最小值加方向项的最小值），A* 用它做启发函数
+    void computeCostPlanes() {
+        CostModel model = costModel;
+        nodeCost = new float[width * height];
+        directionBins = model.usesDirection() ? new byte[width * height] : null;
+        int bands = bandCount(height);
+        float[] localMin = new float[bands];
+
+        runStage("costPlanes", bands, b -> {
+            int startY = b * BAND_HEIGHT;
+            int endY = Math.min(height, startY + BAND_HEIGHT);
+            int lapY0 = Math.max(0, startY - 1), lapY1 = Math.min(height, endY + 1);
+            int[] lap = model.usesLaplacian() ? laplacian(lapY0, lapY1) : null;
+            float min = Float.POSITIVE_INFINITY;
+            for (int y = startY; y < endY; y++) {
+                for (int x = 0; x < width; x++) {
+                    int p = y * width + x;
+                    boolean zeroCrossing = lap != null && isZeroCrossing(lap, lapY0, x, y);
+                    float cost = model.nodeCost(G[p], f_G[p], zeroCrossing);
+                    nodeCost[p] = cost;
+                    if (cost < min) min = cost;
+                    if (directionBins != null) {
+                        directionBins[p] = CostModel.directionBin(Ix[p], Iy[p]);
+                    }
+                }
+            }
+            localMin[b] = min;
+        });
+        float min = Float.POSITIVE_INFINITY;
+        for (float m : localMin) {
+            min = Math.min(min, m);
+        }
+        minStepCost = width * height > 1 ? min + model.minDirectionCost() : 0;
+    }
+
+    // 模糊后灰度第 [y0, y1) 行的 4 邻域拉普拉斯，图像边界上为 0
+    private int[] laplacian(int y0, int y1) {
+        int[] lap = new int[(y1 - y0) * width];
+        for (int y = Math.max(1, y0); y < Math.min(height - 1, y1); y++) {
+            for (int x = 1; x < width - 1; x++) {
+                int p = y * width + x;
+                lap[(y - y0) * width + x] = pixels[p - 1] + pixels[p + 1] + pixels[p - width] + pixels[p + width] - 4 * pixels[p];
+            }
+        }
+        return lap;
+    }
+
+    // (x, y) 是否为拉普拉斯的过零点：与某个 4 邻居异号且自己更接近 0，或自己为 0 而两侧邻居一正一负
+    private boolean isZeroCrossing(int[] lap, int y0, int x, int y) {
+        if (x < 1 || x >= width - 1 || y < 1 || y >= height - 1) return false;
+        int row = (y - y0) * width;
+        int l = lap[row + x];
+        int[] neighbors = { lap[row + x - 1], lap[row + x + 1], lap[row - width + x], lap[row + width + x] };
+        boolean positive = false, negative = false;
+        for (int n : neighbors) {
+            if (n > 0) positive = true;
+            if (n < 0) negative = true;
+            if (((l > 0 && n < 0) || (l < 0 && n > 0)) && Math.abs(l) <= Math.abs(n)) return true;
+        }
+        return l == 0 && positive && negative;
+    }
+
+    void buildGraph() {
+        if (nodeCost == null) {
+            computeCostPlanes();
+        }
+        graph = new PixelGraph(width, height);
+        float[] costs = graph.costs;
+        float[] node = nodeCost;
+        byte[] bins = directionBins;
+        float[] table = bins != null ? costModel.directionTable() : null;
+        float diagonal = (float) Math.sqrt(2);
+        int bands = bandCount(height);
+
+        runStage("graph", bands, b -> {
+            int endY = Math.min(height, (b + 1) * BAND_HEIGHT);
+            for (int y = b * BAND_HEIGHT; y < endY; y++) {
+                for (int x = 0; x < width; x++) {
+                    int p = y * width + x;
+                    int base = p * PixelGraph.DIRECTIONS;
+                    for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                        int nx = x + PixelGraph.DX[i];
+                        int ny = y + PixelGraph.DY[i];
+                        if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+                            int q = ny * width + nx;
+                            boolean isDiag = PixelGraph.DX[i] != 0 && PixelGraph.DY[i] != 0;
+                            float cost = isDiag ? node[q] * diagonal : node[q];
+                            if (bins != null) {
+                                cost += table[CostModel.directionRow(bins[p]) + bins[q] * PixelGraph.DIRECTIONS + i];
+                            }
+                            costs[base + i] = cost;
+                        } else {
+                            costs[base + i] = Float.POSITIVE_INFINITY;
+                        }
+                    }
+                }
+            }
+        });
+        graph.minStepCost = minStepCost;
+        resetSearchState();
+    }
+
+    // 惰性边权：不分配每像素 8 个的边权，直接引用 computeCostPlanes 算好的节点代价和方向平面，搜索时按方向现算
+    void buildLazyGraph() {
+        float[] table = directionBins != null ? costModel.directionTable() : null;
+        graph = PixelGraph.lazy(width, height, nodeCost, directionBins, table, edgeCostMode == EdgeCostMode.LAZY_MEMO);
+        graph.minStepCost = minStepCost;
+        resetSearchState();
+    }
+
+    // 图重建后旧的搜索状态失效，按需重新创建
+    private void resetSearchState() {
+        pathEngine = null;
+        seedTree = null;
+        regionSearch = null;
+        seedTreeCache.clear(); // 旧图的树不会再命中，直接释放
+    }
+
+    // 影响代价图的所有参数，作为缓存 key 的一部分；改动核、代价公式等时要同时改这里
+    private String costMapParams(double thresholdFraction) {
+        return String.format("blur=gauss3x3;gradient=scharr3x3;cost=%s;bins=%d;nms=%b;threshold=%s",
+                costModel.describe(), CostModel.DIRECTION_BINS, nonMaxSuppression, thresholdFraction);
+    }
+
+    // 缓存命中时平面直接读入现有数组、换上缓存中的图，只重建 KD 树；返回是否命中
+    private boolean loadCostMaps(byte[] key, double thresholdFraction) throws IOException {
+        long startTime = System.nanoTime();
+        CostMapCache.Entry entry = new CostMapCache.Entry();
+        entry.width = width;
+        entry.height = height;
+        entry.pixels = pixels;
+        entry.Ix = Ix;
+        entry.Iy = Iy;
+        entry.G = G;
+        entry.f_G = f_G;
+        if (!costMapCache.load(key, entry, edgeCostMode == EdgeCostMode.EAGER)) {
+            return false;
+        }
+        minStepCost = entry.minStepCost;
+        if (entry.graph != null) {
+            graph = entry.graph;
+            nodeCost = null; // 特征平面只在需要重建图时再算
+            directionBins = null;
+            resetSearchState();
+        } else if (entry.nodeCost != null) {
+            nodeCost = entry.nodeCost; // 惰性模式写入的文件没有边权，用缓存的特征平面重建
+            directionBins = entry.directionBins;
+            buildGraph();
+        } else {
+            nodeCost = null; // 节点代价和方向平面留在缓存文件的映射中
+            directionBins = null;
+            float[] table = entry.mappedDirection != null ? costModel.directionTable() : null;
+            graph = PixelGraph.lazyMapped(width, height, entry.mappedNodeCost, entry.mappedDirection,
+                    CostMapCache.PLANE_SEGMENT_SHIFT, table, edgeCostMode == EdgeCostMode.LAZY_MEMO);
+            graph.minStepCost = minStepCost;
+            resetSearchState();
+        }
+        stageTimings.put("cacheLoad", System.nanoTime() - startTime);
+        buildKdTree(entry.G_max, thresholdFraction);
+        return true;
+    }
+
+    // 在后台写入缓存，不阻塞 process()（GUI 在事件线程上调用）；下一次 process() 改写各平面之前先等它写完
+    private void storeCostMaps(byte[] key, double G_max) {
+        long startTime = System.nanoTime();
+        CostMapCache.Entry entry = new CostMapCache.Entry();
+        entry.width = width;
+        entry.height = height;
+        entry.pixels = pixels;
+        entry.Ix = Ix;
+        entry.Iy = Iy;
+        entry.G = G;
+        entry.f_G = f_G;
+        entry.nodeCost = nodeCost;
+        entry.directionBins = directionBins;
+        entry.minStepCost = minStepCost;
+        entry.graph = graph;
+        entry.G_max = G_max;
+        pendingCacheStore = costMapCache.storeAsync(key, entry);
+        stageTimings.put("cacheStoreSubmit", System.nanoTime() - startTime);
+    }
+
+    // 等待后台的缓存写入完成（写入失败只输出到 stderr，这里不再报告）
+    private void awaitCostMapStore() {
+        Future<?> store = pendingCacheStore;
+        if (store == null) return;
+        pendingCacheStore = null;
+        try {
+            store.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // 返回从种子到目标的像素下标序列（含两端），不可达时返回空数组
+    public int[] computeShortestPath(int seedX, int seedY, int targetX, int targetY) {
+        if (searchMargin >= 0) {
+            return computeShortestPathBounded(seedX, seedY, targetX, targetY, searchMargin);
+        }
+        return computeShortestPath(seedX, seedY, targetX, targetY, pathStrategy);
+    }
+
+    // 限定区域的查询：只在种子与目标的外接矩形向外扩 margin 的区域内搜索，
+    // 缓冲区只按区域大小分配；路径贴到区域边界时自动放大区域重试
+    public int[] computeShortestPathBounded(int seedX, int seedY, int targetX, int targetY, int margin) {
+        if (seedX < 0 || seedX >= width || seedY < 0 || seedY >= height ||
+                targetX < 0 || targetX >= width || targetY < 0 || targetY >= height) {
+            return new int[0];
+        }
+        if (regionSearch == null) {
+            regionSearch = new RegionSearch(graph);
+        }
+        return regionSearch.shortestPath(seedY * width + seedX, targetY * width + targetX, margin);
+    }
+
+    // 金字塔由粗到细的近似查询：levels 与 band 半径越大越接近精确解，越小越快
+    public int[] computeShortestPathPyramid(int seedX, int seedY, int targetX, int targetY) {
+        return computeShortestPathPyramid(seedX, seedY, targetX, targetY, pyramidLevels, pyramidBandRadius);
+    }
+
+    public int[] computeShortestPathPyramid(int seedX, int seedY, int targetX, int targetY, int levels, int bandRadius) {
+        if (seedX < 0 || seedX >= width || seedY < 0 || seedY >= height ||
+                targetX < 0 || targetX >= width || targetY < 0 || targetY >= height) {
+            return new int[0];
+        }
+        ensurePyramid();
+        if (pyramid == null) {
+            return computeShortestPath(seedX, seedY, targetX, targetY, PathStrategy.DIJKSTRA);
+        }
+        return pyramid.shortestPath(seedY * width + seedX, targetY * width + targetX, levels, bandRadius);
+    }
+
+    // 在下一次金字塔查询时生效
+    public void setPyramidLevels(int levels) {
+        if (Math.max(0, levels) != pyramidLevels) {
+            pyramid = null;
+        }
+        this.pyramidLevels = Math.max(0, levels);
+    }
+
+    public void setPyramidBandRadius(int bandRadius) {
+        this.pyramidBandRadius = Math.max(0, bandRadius);
+    }
+
+    void buildRangeMax() {
+        long startTime = System.nanoTime();
+        rangeMax = new RangeMaxIndex(G, width, height);
+        stageTimings.put("rangeMax", System.nanoTime() - startTime);
+    }
+
+    // 金字塔（每像素约 10.7 字节）在第一次金字塔查询时才建：GUI 和批处理不用它，process() 不为它付出时间和内存
+    private void ensurePyramid() {
+        if (pyramid == null && pyramidLevels > 0) {
+            buildPyramid();
+        }
+    }
+
+    void buildPyramid() {
+        pyramid = null;
+        if (pyramidLevels > 0) {
+            long startTime = System.nanoTime();
+            pyramid = new CostPyramid(graph, G, pyramidLevels);
+            stageTimings.put("pyramid", System.nanoTime() - startTime);
+        }
+    }
+
+    // margin < 0 表示关闭限定区域模式
+    public void setSearchMargin(int margin) {
+        this.searchMargin = margin;
+    }
+
+    public int getSearchMargin() {
+        return searchMargin;
+    }
+
+    // 指定搜索策略的点到点查询，各策略的结果都是最优路径
+    public int[] computeShortestPath(int seedX, int seedY, int targetX, int targetY, PathStrategy strategy) {
+        if (seedX < 0 || seedX >= width || seedY < 0 || seedY >= height ||
+                targetX < 0 || targetX >= width || targetY < 0 || targetY >= height) {
+            return new int[0];
+        }
+        if (pathEngine == null) {
+            pathEngine = new ShortestPathEngine(graph);
+        }
+        return pathEngine.shortestPath(seedY * width + seedX, targetY * width + targetX, strategy);
+    }
+
+    public void setPathStrategy(PathStrategy strategy) {
+        this.pathStrategy = strategy;
+    }
+
+    public PathStrategy getPathStrategy() {
+        return pathStrategy;
+    }
+
+    // 种子模式：以 (seedX, seedY) 为根开始一棵新的最短路树。这里只初始化边界，
+    // 展开推迟到 getPathTo 真正需要时进行；种子不变时保留已有的搜索状态
+    public void setSeed(int seedX, int seedY) {
+        if (seedX < 0 || seedX >= width || seedY < 0 || seedY >= height) {
+            return;
+        }
+        if (seedTree == null) {
+            seedTree = new SeedTree(graph, seedTreeCache);
+        }
+        int seedIndex = seedY * width + seedX;
+        if (seedTree.getSeed() == seedIndex) {
+            return;
+        }
+        seedTree.reset(seedIndex);
+    }
+
+    // 种子树缓存的预算（字节），为 0 时关闭；已缓存的树全部丢弃
+    public void setSeedTreeCacheBudget(long budgetBytes) {
+        seedTreeCache = new SeedTreeCache(budgetBytes);
+        seedTree = null;
+    }
+
+    // GUI 的 PathService 与种子模式共用同一个缓存
+    SeedTreeCache getSeedTreeCache() {
+        return seedTreeCache;
+    }
+
+    // 种子模式：一次性展开整棵树（例如空闲时预计算），之后所有 getPathTo 都只需回溯
+    public void expandSeedTree() {
+        if (seedTree != null && seedTree.getSeed() >= 0) {
+            seedTree.expandUntil(-1);
+        }
+    }
+
+    // 种子模式：从当前种子到目标的路径。目标已出堆时只沿前驱回溯，
+    // 否则从上次停下的边界继续扩展到目标出堆；未设置种子时返回空数组
+    public int[] getPathTo(int targetX, int targetY) {
+        if (seedTree == null || seedTree.getSeed() < 0
+                || targetX < 0 || targetX >= width || targetY < 0 || targetY >= height) {
+            return new int[0];
+        }
+        int targetIndex = targetY * width + targetX;
+        seedTree.expandUntil(targetIndex);
+        return seedTree.pathTo(targetIndex);
+    }
+
+    // 未优化版本（每次查询分配 double[V] 与 IndexMinPQ<Double>），保留用于评估对比
+    private int[] computeShortestPathUnoptimized(int seedX, int seedY, int targetX, int targetY) {
+        if (seedX < 0 || seedX >= width || seedY < 0 || seedY >= height ||
+                targetX < 0 || targetX >= width || targetY < 0 || targetY >= height) {
+            return new int[0];
+        }
+
+        int V = width * height;
+        double[] distTo = new double[V];
+        int[] edgeTo = new int[V];
+        IndexMinPQ<Double> pq = new IndexMinPQ<>(V);
+
+        for (int v = 0; v < V; v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+        }
+
+        int seedIndex = seedY * width + seedX;
+        int targetIndex = targetY * width + targetX;
+        distTo[seedIndex] = 0.0;
+        edgeTo[seedIndex] = -1;
+        pq.insert(seedIndex, 0.0);
+
+        unoptimizedSettledCount = 0;
+        while (!pq.isEmpty()) {
+            int currentIndex = pq.delMin();
+            unoptimizedSettledCount++;
+            if (currentIndex == targetIndex) break;
+
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                float cost = graph.cost(currentIndex, i);
+                if (cost == Float.POSITIVE_INFINITY) continue; // 越界方向
+                int neighborIndex = graph.neighbor(currentIndex, i);
+
+                double newDist = distTo[currentIndex] + cost;
+                if (newDist < distTo[neighborIndex]) {
+                    distTo[neighborIndex] = newDist;
+                    edgeTo[neighborIndex] = currentIndex;
+
+                    if (pq.contains(neighborIndex)) {
+                        pq.decreaseKey(neighborIndex, distTo[neighborIndex]);
+                    } else {
+                        pq.insert(neighborIndex, distTo[neighborIndex]);
+                    }
+                }
+            }
+        }
+
+        if (distTo[targetIndex] == Double.POSITIVE_INFINITY) {
+            return new int[0];
+        }
+
+        int length = 1;
+        for (int v = targetIndex; v != seedIndex; v = edgeTo[v]) {
+            length++;
+        }
+        int[] result = new int[length];
+        for (int v = targetIndex, i = length - 1; i >= 0; v = edgeTo[v], i--) {
+            result[i] = v;
+        }
+        return result;
+    }
+
+
+    // 优化版本（使用 KD 树）
+    public int[] findStrongestEdgeInNeighborhood(int x, int y, int windowSize) {
+        if (G == null) {
+            throw new IllegalStateException("梯度未计算，请先调用 computeGradients()");
+        }
+
+        if (kdTree != null) {
+            int strongest = kdTree.findStrongestInRange(x, y, windowSize);
+            if (strongest >= 0) {
+                return new int[] { kdTree.getX(strongest), kdTree.getY(strongest) };
+            }
+        }
+
+        return findStrongestEdgeBruteForce(x, y, windowSize);
+    }
+
+    // 优化版本（区间最大值索引）：窗口边长不超过 RangeMaxIndex.MAX_WINDOW 时查询时间与窗口大小无关，
+    // GUI 的光标吸附使用这个版本；更大的窗口改用 KD 树
+    public int[] findStrongestEdgeRangeMax(int x, int y, int windowSize) {
+        if (windowSize > RangeMaxIndex.MAX_WINDOW) {
+            return findStrongestEdgeInNeighborhood(x, y, windowSize);
+        }
+        if (rangeMax == null) {
+            return findStrongestEdgeBruteForce(x, y, windowSize);
+        }
+        int strongest = rangeMax.findStrongest(x, y, windowSize);
+        if (strongest < 0) {
+            return new int[] { x, y };
+        }
+        return new int[] { strongest % width, strongest / width };
+    }
+
+    // 未优化版本（暴力搜索）
+    int[] findStrongestEdgeBruteForce(int x, int y, int windowSize) {
+        int half = windowSize / 2;
+        int bestX = x;
+        int bestY = y;
+        double maxGrad = -1.0;
+
+        for (int dy = -half; dy <= half; dy++) {
+            for (int dx = -half; dx <= half; dx++) {
+                int nx = x + dx;
+                int ny = y + dy;
+
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+                    if (G[ny * width + nx] > maxGrad) {
+                        maxGrad = G[ny * width + nx];
+                        bestX = nx;
+                        bestY = ny;
+                    }
+                }
+            }
+        }
+
+        return new int[] { bestX, bestY };
+    }
+
+    public void evaluatePerformance(String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/performance.csv"));
+             PrintWriter stageWriter = new PrintWriter(new File(outputDir + "/stage_performance.csv"))) {
+            writer.println("x,y,windowSize,threshold,method,time_ns,memory_bytes,nodes_visited,result_x,result_y");
+            stageWriter.println("threshold,threads,stage,time_ns");
+
+            double[] thresholds = {0.05, 0.1, 0.2}; // 测试不同高梯度点阈值
+            int[] windowSizes = {5, 10, 20, 50, 100}; // 测试不同窗口大小
+            int numTrials = 10;
+            int[] testPoints = {
+                    width / 4, height / 4,
+                    width / 2, height / 2,
+                    3 * width / 4, 3 * height / 4
+            };
+
+            Runtime runtime = Runtime.getRuntime();
+
+            for (double threshold : thresholds) {
+                // 为每个阈值重新处理图像
+                process(threshold); // 重新建 KD 树
+                for (Map.Entry<String, Long> stage : stageTimings.entrySet()) {
+                    stageWriter.println(String.format("%.2f,%d,%s,%d",
+                            threshold, getProcessingThreads(), stage.getKey(), stage.getValue()));
+                }
+
+                for (int windowSize : windowSizes) {
+                    for (int i = 0; i < testPoints.length; i += 2) {
+                        int x = testPoints[i];
+                        int y = testPoints[i + 1];
+
+                        for (int trial = 0; trial < numTrials; trial++) {
+                            // KD 树
+                            runtime.gc();
+                            long startMemory = runtime.totalMemory() - runtime.freeMemory();
+                            kdTree.resetNodesVisited(); // 重置节点访问计数
+                            long startTime = System.nanoTime();
+                            int[] kdResult = findStrongestEdgeInNeighborhood(x, y, windowSize);
+                            long kdTime = System.nanoTime() - startTime;
+                            long kdMemory = (runtime.totalMemory() - runtime.freeMemory()) - startMemory;
+                            int kdNodesVisited = kdTree.getNodesVisited();
+
+                            // 区间最大值索引
+                            runtime.gc();
+                            startMemory = runtime.totalMemory() - runtime.freeMemory();
+                            startTime = System.nanoTime();
+                            int[] rmResult = findStrongestEdgeRangeMax(x, y, windowSize);
+                            long rmTime = System.nanoTime() - startTime;
+                            long rmMemory = (runtime.totalMemory() - runtime.freeMemory()) - startMemory;
+                            int rmBlocksRead = rangeMax.getBlocksRead();
+
+                            // 暴力搜索
+                            runtime.gc();
+                            startMemory = runtime.totalMemory() - runtime.freeMemory();
+                            startTime = System.nanoTime();
+                            int[] bfResult = findStrongestEdgeBruteForce(x, y, windowSize);
+                            long bfTime = System.nanoTime() - startTime;
+                            long bfMemory = (runtime.totalMemory() - runtime.freeMemory()) - startMemory;
+                            int bfNodesVisited = windowSize * windowSize; // 暴力搜索检查的像素数
+
+                            writer.println(String.format("%d,%d,%d,%.2f,KDTree,%d,%d,%d,%d,%d",
+                                    x, y, windowSize, threshold, kdTime, kdMemory, kdNodesVisited, kdResult[0], kdResult[1]));
+                            writer.println(String.format("%d,%d,%d,%.2f,RangeMax,%d,%d,%d,%d,%d",
+                                    x, y, windowSize, threshold, rmTime, rmMemory, rmBlocksRead, rmResult[0], rmResult[1]));
+                            writer.println(String.format("%d,%d,%d,%.2f,BruteForce,%d,%d,%d,%d,%d",
+                                    x, y, windowSize, threshold, bfTime, bfMemory, bfNodesVisited, bfResult[0], bfResult[1]));
+                        }
+                    }
+                }
+            }
+        }
+    }
+    // 评估种子树缓存：模拟一次标注过程——依次放 8 个种子（每个种子的树在空闲时展开完毕），
+    // 再逐个撤销回到前面的种子并悬停，最后从最后一个种子闭合到第一个种子。
+    // 对比不同缓存预算下各阶段的耗时、出堆像素数和命中/未命中/淘汰次数，并检查路径与不缓存时相同。
+    // 写入 seed_tree_cache.csv
+    public void evaluateSeedTreeCache(String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        SeedTreeCache original = seedTreeCache;
+        int seedCount = 8;
+        Random random = new Random(9);
+        int[] seeds = new int[seedCount * 2];
+        for (int i = 0; i < seeds.length; i += 2) {
+            seeds[i] = random.nextInt(width);
+            seeds[i + 1] = random.nextInt(height);
+        }
+        long treeBytes = (long) width * height;
+        long[] budgets = { 0, 3 * treeBytes, 64L << 20 }; // 不缓存、只放得下 3 棵树、默认预算
+        Map<String, List<int[]>> reference = new LinkedHashMap<>();
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/seed_tree_cache.csv"))) {
+            writer.println("budget_mb,phase,operations,total_ms,nodes_settled,hits,misses,evictions,cache_mb,paths_match");
+            for (long budget : budgets) {
+                setSeedTreeCacheBudget(budget);
+                List<int[]> paths = new ArrayList<>();
+
+                // 放置：每个种子求到下一个种子的一段，然后展开整棵树（GUI 中由后台线程在用户移动鼠标时完成）
+                long time = 0, settled = 0;
+                for (int i = 0; i < seedCount; i++) {
+                    int next = (i + 1) % seedCount;
+                    long start = System.nanoTime();
+                    setSeed(seeds[2 * i], seeds[2 * i + 1]);
+                    paths.add(getPathTo(seeds[2 * next], seeds[2 * next + 1]));
+                    expandSeedTree();
+                    time += System.nanoTime() - start;
+                    settled += seedTree.getSettledCount();
+                }
+                writeSeedTreeCacheRow(writer, budget, "place", seedCount, time, settled, paths, reference);
+
+                // 撤销：回到倒数第二个、倒数第三个……直到第一个种子，每次悬停到原来的下一个种子附近
+                seedTreeCache.resetCounters();
+                paths.clear();
+                time = 0;
+                settled = 0;
+                for (int i = seedCount - 2; i >= 0; i--) {
+                    int hoverX = Math.min(width - 1, seeds[2 * i + 2] + 3), hoverY = Math.min(height - 1, seeds[2 * i + 3] + 3);
+                    long start = System.nanoTime();
+                    setSeed(seeds[2 * i], seeds[2 * i + 1]);
+                    paths.add(getPathTo(hoverX, hoverY));
+                    time += System.nanoTime() - start;
+                    settled += seedTree.getSettledCount();
+                }
+                writeSeedTreeCacheRow(writer, budget, "undo", seedCount - 1, time, settled, paths, reference);
+
+                // 闭合：以最后一个种子为根的树回溯到第一个种子
+                seedTreeCache.resetCounters();
+                paths.clear();
+                long start = System.nanoTime();
+                setSeed(seeds[2 * seedCount - 2], seeds[2 * seedCount - 1]);
+                paths.add(getPathTo(seeds[0], seeds[1]));
+                time = System.nanoTime() - start;
+                writeSeedTreeCacheRow(writer, budget, "close", 1, time, seedTree.getSettledCount(), paths, reference);
+            }
+        } finally {
+            seedTreeCache = original;
+            seedTree = null;
+        }
+    }
+
+    // 第一种预算（不缓存）各阶段的路径作为参照，之后的预算与之比较
+    private void writeSeedTreeCacheRow(PrintWriter writer, long budget, String phase, int operations, long time,
+                                       long settled, List<int[]> paths, Map<String, List<int[]>> reference) {
+        boolean same = true;
+        if (!reference.containsKey(phase)) {
+            reference.put(phase, new ArrayList<>(paths));
+        } else {
+            List<int[]> expected = reference.get(phase);
+            for (int i = 0; i < paths.size(); i++) {
+                same &= Arrays.equals(paths.get(i), expected.get(i));
+            }
+        }
+        String row = String.format("%.1f,%s,%d,%.1f,%d,%d,%d,%d,%.1f,%b", budget / 1e6, phase, operations,
+                time / 1e6, settled, seedTreeCache.getHits(), seedTreeCache.getMisses(), seedTreeCache.getEvictions(),
+                seedTreeCache.residentBytes() / 1e6, same);
+        writer.println(row);
+        System.out.println("Seed tree cache: " + row);
+    }
+
+    // 评估：对比优化前后的最短路查询延迟，结果写入 path_performance.csv
+    public void evaluatePathPerformance(String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/path_performance.csv"))) {
+            writer.println("seed_x,seed_y,target_x,target_y,method,time_ns,nodes_settled,path_length,path_cost");
+
+            double[] fractions = {0.05, 0.15, 0.3, 0.45}; // 种子到目标的距离（占图像尺寸的比例）
+            int numTrials = 5;
+            int cx = width / 2;
+            int cy = height / 2;
+
+            for (double fraction : fractions) {
+                int seedX = (int) (cx - fraction * width);
+                int seedY = (int) (cy - fraction * height);
+                int targetX = (int) (cx + fraction * width) - 1;
+                int targetY = (int) (cy + fraction * height) - 1;
+
+                for (int trial = 0; trial < numTrials; trial++) {
+                    if (pathEngine != null) {
+                        pathEngine.clear(); // 每次都从头搜索，否则会直接复用上一次的结果
+                    }
+                    long startTime = System.nanoTime();
+                    int[] path = computeShortestPath(seedX, seedY, targetX, targetY, PathStrategy.DIJKSTRA);
+                    long time = System.nanoTime() - startTime;
+                    writer.println(String.format("%d,%d,%d,%d,Workspace,%d,%d,%d,%.6f",
+                            seedX, seedY, targetX, targetY, time, pathEngine.getSettledCount(),
+                            path.length, graph.pathCost(path)));
+
+                    startTime = System.nanoTime();
+                    path = computeShortestPath(seedX, seedY, targetX, targetY, PathStrategy.ASTAR);
+                    time = System.nanoTime() - startTime;
+                    writer.println(String.format("%d,%d,%d,%d,AStar,%d,%d,%d,%.6f",
+                            seedX, seedY, targetX, targetY, time, pathEngine.getSettledCount(),
+                            path.length, graph.pathCost(path)));
+
+                    startTime = System.nanoTime();
+                    path = computeShortestPath(seedX, seedY, targetX, targetY, PathStrategy.BIDIRECTIONAL);
+                    time = System.nanoTime() - startTime;
+                    writer.println(String.format("%d,%d,%d,%d,Bidirectional,%d,%d,%d,%.6f",
+                            seedX, seedY, targetX, targetY, time, pathEngine.getSettledCount(),
+                            path.length, graph.pathCost(path)));
+
+                    startTime = System.nanoTime();
+                    path = computeShortestPath(seedX, seedY, targetX, targetY, PathStrategy.DIAL);
+                    time = System.nanoTime() - startTime;
+                    writer.println(String.format("%d,%d,%d,%d,Dial,%d,%d,%d,%.6f",
+                            seedX, seedY, targetX, targetY, time, pathEngine.getSettledCount(),
+                            path.length, graph.pathCost(path)));
+
+                    startTime = System.nanoTime();
+                    path = computeShortestPathBounded(seedX, seedY, targetX, targetY, 32);
+                    time = System.nanoTime() - startTime;
+                    writer.println(String.format("%d,%d,%d,%d,Bounded,%d,%d,%d,%.6f",
+                            seedX, seedY, targetX, targetY, time, regionSearch.getSettledCount(),
+                            path.length, graph.pathCost(path)));
+
+                    startTime = System.nanoTime();
+                    path = computeShortestPathUnoptimized(seedX, seedY, targetX, targetY);
+                    time = System.nanoTime() - startTime;
+                    writer.println(String.format("%d,%d,%d,%d,Unoptimized,%d,%d,%d,%.6f",
+                            seedX, seedY, targetX, targetY, time, unoptimizedSettledCount, path.length, graph.pathCost(path)));
+                }
+
+                // 种子模式：第一次查询扩展到目标出堆，之后的查询只回溯；
+                // 最后展开整棵树，对比一次性预计算的代价
+                if (seedTree != null) {
+                    seedTree.clear();
+                }
+                seedTreeCache.clear(); // 测量的是第一次查询，不能从缓存恢复
+                setSeed(seedX, seedY);
+                for (int trial = 0; trial < numTrials; trial++) {
+                    long startTime = System.nanoTime();
+                    int[] path = getPathTo(targetX, targetY);
+                    long time = System.nanoTime() - startTime;
+                    writer.println(String.format("%d,%d,%d,%d,SeedTreeHover,%d,%d,%d,%.6f",
+                            seedX, seedY, targetX, targetY, time, seedTree.getSettledCount(),
+                            path.length, graph.pathCost(path)));
+                }
+                long expandStart = System.nanoTime();
+                expandSeedTree();
+                long expandTime = System.nanoTime() - expandStart;
+                writer.println(String.format("%d,%d,%d,%d,SeedTreeExpandAll,%d,%d,%d,%.6f",
+                        seedX, seedY, targetX, targetY, expandTime, seedTree.getSettledCount(), 0, 0.0));
+            }
+        }
+    }
+
+    // 评估：金字塔查询与精确 Dijkstra 的对比（不同层数与窄带半径），结果写入 pyramid_performance.csv。
+    // cost_excess 为代价相对精确解多出的比例，max_deviation 为金字塔路径上的点到精确路径的最大距离（像素）
+    public void evaluatePyramidPerformance(String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/pyramid_performance.csv"))) {
+            writer.println("seed_x,seed_y,target_x,target_y,levels,band_radius,time_ns,nodes_settled,path_cost,exact_time_ns,exact_nodes_settled,exact_cost,cost_excess,max_deviation");
+
+            double[] fractions = {0.15, 0.3, 0.45};
+            int[] levelOptions = {1, 2, 3};
+            int[] bandOptions = {1, 2, 4, 8};
+            int cx = width / 2;
+            int cy = height / 2;
+
+            for (double fraction : fractions) {
+                int seedX = (int) (cx - fraction * width);
+                int seedY = (int) (cy - fraction * height);
+                int targetX = (int) (cx + fraction * width) - 1;
+                int targetY = (int) (cy + fraction * height) - 1;
+
+                if (pathEngine != null) {
+                    pathEngine.clear();
+                }
+                long startTime = System.nanoTime();
+                int[] exact = computeShortestPath(seedX, seedY, targetX, targetY, PathStrategy.DIJKSTRA);
+                long exactTime = System.nanoTime() - startTime;
+                int exactSettled = pathEngine.getSettledCount();
+                double exactCost = graph.pathCost(exact);
+
+                ensurePyramid();
+                for (int levels : levelOptions) {
+                    if (pyramid == null || levels > pyramid.getLevelCount()) continue;
+                    for (int band : bandOptions) {
+                        startTime = System.nanoTime();
+                        int[] path = computeShortestPathPyramid(seedX, seedY, targetX, targetY, levels, band);
+                        long time = System.nanoTime() - startTime;
+                        double cost = graph.pathCost(path);
+                        writer.println(String.format("%d,%d,%d,%d,%d,%d,%d,%d,%.6f,%d,%d,%.6f,%.6f,%.2f",
+                                seedX, seedY, targetX, targetY, levels, band, time, pyramid.getSettledCount(), cost,
+                                exactTime, exactSettled, exactCost, (cost - exactCost) / exactCost, maxDeviation(path, exact)));
+                    }
+                }
+            }
+        }
+    }
+
+    // 评估：标量与向量卷积核逐阶段的对比，每个阶段在整幅图像上跑一遍（不修改图像状态），结果写入 kernel_performance.csv。
+    // gradient 阶段包括 Ix、Iy 和幅值 sqrt(Ix² + Iy²)
+    public void evaluateKernelPerformance(String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        List<RowKernel> kernels = new ArrayList<>();
+        kernels.add(new ScalarRowKernel());
+        RowKernel best = RowKernel.create();
+        if (!(best instanceof ScalarRowKernel)) {
+            kernels.add(best);
+        }
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/kernel_performance.csv"))) {
+            writer.println("kernel,stage,width,height,time_ns,mpixels_per_s");
+            int numTrials = 10;
+            int[] blurred = new int[width * height];
+            float[] gx = new float[width * height], gy = new float[width * height], g = new float[width * height];
+            int[] above = new int[width], row = new int[width], below = new int[width], out = new int[width];
+
+            for (RowKernel kernel : kernels) {
+                for (int trial = 0; trial < numTrials; trial++) {
+                    long startTime = System.nanoTime();
+                    for (int y = 1; y < height - 1; y++) {
+                        System.arraycopy(pixels, (y - 1) * width, above, 0, width);
+                        System.arraycopy(pixels, y * width, row, 0, width);
+                        System.arraycopy(pixels, (y + 1) * width, below, 0, width);
+                        kernel.blurRow(above, row, below, out, width);
+                        System.arraycopy(out, 0, blurred, y * width, width);
+                    }
+                    long time = System.nanoTime() - startTime;
+                    writer.println(String.format("%s,blur,%d,%d,%d,%.1f",
+                            kernel.name(), width, height, time, width * (double) height / time * 1e3));
+
+                    startTime = System.nanoTime();
+                    for (int y = 1; y < height - 1; y++) {
+                        System.arraycopy(blurred, (y - 1) * width, above, 0, width);
+                        System.arraycopy(blurred, y * width, row, 0, width);
+                        System.arraycopy(blurred, (y + 1) * width, below, 0, width);
+                        kernel.gradientRow(above, row, below, gx, gy, g, y * width, width);
+                    }
+                    time = System.nanoTime() - startTime;
+                    writer.println(String.format("%s,gradient,%d,%d,%d,%.1f",
+                            kernel.name(), width, height, time, width * (double) height / time * 1e3));
+                }
+            }
+        }
+    }
+
+    // 评估：各解码后端从文件到灰度平面的耗时，结果写入 decode_performance.csv。
+    // GetRGB 为未优化版本（ImageIO 解码后逐像素 getRGB），保留用于对比
+    public static void evaluateDecodePerformance(String imagePath, String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File file = new File(imagePath);
+        List<ImageLoader> loaders = new ArrayList<>();
+        loaders.add(new RasterImageLoader());
+        ImageLoader stb = ImageLoader.create("stb");
+        if (stb != null) {
+            loaders.add(stb);
+        }
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/decode_performance.csv"))) {
+            writer.println("backend,width,height,trial,time_ns");
+            int numTrials = 5;
+            for (int trial = 0; trial < numTrials; trial++) {
+                long startTime = System.nanoTime();
+                BufferedImage image = ImageIO.read(file);
+                int[] gray = new int[image.getWidth() * image.getHeight()];
+                for (int y = 0; y < image.getHeight(); y++) {
+                    for (int x = 0; x < image.getWidth(); x++) {
+                        int rgb = image.getRGB(x, y);
+                        gray[y * image.getWidth() + x] = LoadedImage.toGray((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+                    }
+                }
+                long time = System.nanoTime() - startTime;
+                writer.println(String.format("GetRGB,%d,%d,%d,%d", image.getWidth(), image.getHeight(), trial, time));
+
+                for (ImageLoader loader : loaders) {
+                    LoadedImage loaded = loader.load(file);
+                    writer.println(String.format("%s,%d,%d,%d,%d",
+                            loader.name(), loaded.width, loaded.height, trial, loaded.decodeNanos));
+                }
+            }
+        }
+    }
+
+    // 评估：CSV 与 .npy 导出同样五个平面的耗时和吞吐量（按写出的文件总大小计），结果写入 export_performance.csv
+    public void evaluateExportPerformance(String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File csvDir = new File(outputDir, "export_csv");
+        File npyDir = new File(outputDir, "export_npy");
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/export_performance.csv"))) {
+            writer.println("format,trial,time_ns,bytes,mb_per_s");
+            int numTrials = 3;
+            for (int trial = 0; trial < numTrials; trial++) {
+                long startTime = System.nanoTime();
+                saveToCSV(csvDir.getPath());
+                long time = System.nanoTime() - startTime;
+                long bytes = directorySize(csvDir);
+                writer.println(String.format("CSV,%d,%d,%d,%.1f", trial, time, bytes, bytes / 1e6 / (time / 1e9)));
+
+                startTime = System.nanoTime();
+                pendingExport = DiagnosticsExporter.exportNpyAsync(npyDir, width, height, pixels, Ix, Iy, G, f_G);
+                awaitDiagnosticsExport();
+                time = System.nanoTime() - startTime;
+                bytes = directorySize(npyDir);
+                writer.println(String.format("NPY,%d,%d,%d,%.1f", trial, time, bytes, bytes / 1e6 / (time / 1e9)));
+            }
+        }
+    }
+
+    // 评估分块引擎：先在 imagePath 上与整图引擎对照（G 逐位相同、限定区域路径相同），
+    // 再在 100k x 100k 的合成图像上于图像各处吸附种子、求路径，最后重复第一段（分块已被淘汰，从映射文件读回）。
+    // 记录耗时、计算/读回/淘汰的分块数、堆内分块与后备文件的大小和 JVM 堆占用，写入 tiled_performance.csv
+    public static void evaluateTiledPerformance(String imagePath, String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        LoadedImage image = ImageLoader.defaultLoader().load(new File(imagePath));
+        int[] gray = image.gray.clone(); // process() 会把模糊结果写回 pixels
+        IntelligentScissorsPart1 processor = new IntelligentScissorsPart1(image);
+        processor.setPyramidLevels(0);
+        processor.process();
+        int w = processor.width, h = processor.height;
+        int margin = 32;
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/tiled_performance.csv"))) {
+            writer.println("image,query,snap_ms,search_ms,settled,path_length,matches_in_memory,"
+                    + "tiles_computed,tiles_reloaded,tiles_evicted,resident_mb,stored_mb,heap_mb");
+
+            try (TiledCostMap tiled = new TiledCostMap(GraySource.ofArray(gray, w, h), 64, 4L << 20, null)) {
+                int mismatched = 0;
+                for (int y = 0; y < h; y++) {
+                    for (int x = 0; x < w; x++) {
+                        if (tiled.gradient(x, y) != processor.G[y * w + x]) mismatched++;
+                    }
+                }
+                System.out.printf("Tiled G vs in-memory G: %d of %d pixels differ%n", mismatched, w * h);
+
+                TiledPathSearch search = new TiledPathSearch(tiled, Integer.MAX_VALUE);
+                Random random = new Random(7);
+                for (int q = 0; q < 5; q++) {
+                    int sx = random.nextInt(w), sy = random.nextInt(h);
+                    int tx = random.nextInt(w), ty = random.nextInt(h);
+                    tiled.resetCounters();
+                    long start = System.nanoTime();
+                    long[] path = search.shortestPath(sx, sy, tx, ty, margin);
+                    long time = System.nanoTime() - start;
+                    int[] reference = processor.computeShortestPathBounded(sx, sy, tx, ty, margin);
+                    boolean same = path.length == reference.length;
+                    for (int i = 0; same && i < path.length; i++) {
+                        same = path[i] == reference[i];
+                    }
+                    writeTiledRow(writer, imagePath, q, 0, time, search, path.length, String.valueOf(same), tiled);
+                }
+            }
+
+            int size = 100_000;
+            try (TiledCostMap tiled = new TiledCostMap(new SyntheticGraySource(size, size), 256, 32L << 20, null)) {
+                TiledPathSearch search = new TiledPathSearch(tiled, 64L << 20);
+                // 四个角、中心和任意位置各一段，种子相距约 1500 像素；最后一段重复第一段
+                int[][] queries = {
+                        { 500, 500, 1700, 1400 }, { 98000, 1000, 99500, 2200 }, { 1000, 98000, 2100, 99400 },
+                        { 49000, 49000, 50500, 50200 }, { 98200, 98300, 99400, 99500 }, { 30000, 70000, 31500, 70800 },
+                        { 500, 500, 1700, 1400 } };
+                for (int q = 0; q < queries.length; q++) {
+                    int[] query = queries[q];
+                    tiled.resetCounters();
+                    long start = System.nanoTime();
+                    int[] seed = tiled.findStrongest(query[0], query[1], 15);
+                    int[] target = tiled.findStrongest(query[2], query[3], 15);
+                    long snapTime = System.nanoTime() - start;
+                    start = System.nanoTime();
+                    long[] path = search.shortestPath(seed[0], seed[1], target[0], target[1], margin);
+                    long time = System.nanoTime() - start;
+                    writeTiledRow(writer, "synthetic-100k", q, snapTime, time, search, path.length, "", tiled);
+                }
+            }
+        }
+    }
+
+    // 评估三种边权方式：process() 的耗时（打开图像后到可以交互）、图占用的内存、模拟鼠标悬停的延迟
+    // （种子模式下沿随机轨迹移动 300 步，每步 getPathTo），以及 A* 点到点查询的耗时和路径是否与立即模式相同。
+    // 每种方式跑 3 轮（第一轮含 JIT 预热），写入 edge_cost_modes.csv
+    public static void evaluateEdgeCostModes(String imagePath, String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        LoadedImage image = ImageLoader.defaultLoader().load(new File(imagePath));
+        int[] gray = image.gray.clone();
+        List<int[]> reference = new ArrayList<>();
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/edge_cost_modes.csv"))) {
+            writer.println("mode,trial,process_ms,graph_mb,graph_after_hover_mb,heap_mb,hover_p50_ms,hover_p99_ms,"
+                    + "hover_max_ms,astar_mean_ms,paths_match_eager");
+            for (int trial = 0; trial < 3; trial++) {
+                for (EdgeCostMode mode : EdgeCostMode.values()) {
+                    IntelligentScissorsPart1 processor = new IntelligentScissorsPart1(
+                            new LoadedImage(image.image, gray.clone(), image.backend, 0));
+                    processor.setEdgeCostMode(mode);
+                    processor.setPyramidLevels(0);
+                    System.gc();
+                    Runtime runtime = Runtime.getRuntime();
+                    long startTime = System.nanoTime();
+                    processor.process();
+                    long processTime = System.nanoTime() - startTime;
+                    double heap = (runtime.totalMemory() - runtime.freeMemory()) / 1e6;
+                    double graphMemory = processor.graph.memoryBytes() / 1e6;
+                    int w = processor.width, h = processor.height;
+
+                    // 鼠标轨迹：从种子出发每步移动至多 6 像素，每 100 步放一个新种子
+                    Random random = new Random(11);
+                    LatencyStats hover = new LatencyStats();
+                    int x = w / 2, y = h / 2;
+                    processor.setSeed(x, y);
+                    for (int step = 1; step <= 300; step++) {
+                        x = Math.max(0, Math.min(w - 1, x + random.nextInt(13) - 6));
+                        y = Math.max(0, Math.min(h - 1, y + random.nextInt(13) - 6));
+                        long start = System.nanoTime();
+                        processor.getPathTo(x, y);
+                        hover.record(System.nanoTime() - start);
+                        if (step % 100 == 0) {
+                            processor.setSeed(x, y);
+                        }
+                    }
+                    double graphAfterHover = processor.graph.memoryBytes() / 1e6;
+
+                    Random pairs = new Random(3);
+                    long astarTime = 0;
+                    boolean same = true;
+                    for (int q = 0; q < 10; q++) {
+                        int sx = pairs.nextInt(w), sy = pairs.nextInt(h), tx = pairs.nextInt(w), ty = pairs.nextInt(h);
+                        long start = System.nanoTime();
+                        int[] path = processor.computeShortestPath(sx, sy, tx, ty, PathStrategy.ASTAR);
+                        astarTime += System.nanoTime() - start;
+                        if (mode == EdgeCostMode.EAGER && trial == 0) {
+                            reference.add(path);
+                        } else {
+                            same &= Arrays.equals(path, reference.get(q));
+                        }
+                    }
+
+                    String row = String.format("%s,%d,%.1f,%.1f,%.1f,%.1f,%.3f,%.3f,%.3f,%.1f,%b", mode, trial,
+                            processTime / 1e6, graphMemory, graphAfterHover, heap,
+                            hover.getPercentileNanos(0.5) / 1e6, hover.getPercentileNanos(0.99) / 1e6,
+                            hover.getMaxNanos() / 1e6, astarTime / 10 / 1e6, same);
+                    writer.println(row);
+                    System.out.println("Edge costs: " + row);
+                }
+            }
+        }
+    }
+
+    // 评估几种代价模型：在合成图像上（带噪声的背景里一个对比度沿边界变化的圆，旁边紧贴一个高对比度的方块）
+    // 沿圆周均匀放 n 个种子、依次连接，求使轮廓与真实边界的最大偏差不超过 2 像素所需的最少种子数；
+    // 并在 imagePath 上记录 process() 和 costPlanes 阶段的耗时。写入 cost_model_performance.csv
+    public static void evaluateCostModels(String imagePath, String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        int size = 256, cx = 128, cy = 128, radius = 70;
+        BufferedImage synthetic = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_GRAY);
+        int[] syntheticGray = new int[size * size];
+        Random noise = new Random(5);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double r = Math.hypot(x - cx, y - cy);
+                double angle = Math.atan2(y - cy, x - cx);
+                int value = 90;
+                if (r <= radius) {
+                    value = 90 + (int) (35 + 20 * Math.sin(angle)); // 对比度在 15 到 55 之间变化
+                } else if (x > cx + radius + 4 && x < cx + radius + 40 && Math.abs(y - cy) < 50) {
+                    value = 230; // 干扰边缘
+                }
+                value = Math.max(0, Math.min(255, value + (int) Math.round(noise.nextGaussian() * 8)));
+                syntheticGray[y * size + x] = value;
+                synthetic.getRaster().setSample(x, y, 0, value);
+            }
+        }
+        LoadedImage sample = ImageLoader.defaultLoader().load(new File(imagePath));
+        CostModel[] models = { CostModel.DEFAULT, CostModel.MORTENSEN_BARRETT,
+                CostModel.parse("inverse=1,laplacian=0.5"), CostModel.parse("inverse=1,direction=0.3") };
+
+        try (PrintWriter writer = new PrintWriter(new File(outputDir + "/cost_model_performance.csv"))) {
+            writer.println("model,seeds_for_2px,max_deviation_8_seeds,process_ms,cost_planes_ms,graph_ms");
+            for (CostModel model : models) {
+                IntelligentScissorsPart1 processor = new IntelligentScissorsPart1(
+                        new LoadedImage(synthetic, syntheticGray.clone(), "synthetic", 0));
+                processor.setCostModel(model);
+                processor.setPyramidLevels(0);
+                processor.process();
+                int seedsNeeded = -1;
+                double deviationAt8 = 0;
+                for (int n = 3; n <= 48; n++) {
+                    double deviation = contourDeviation(processor, n, cx, cy, radius);
+                    if (n == 8) deviationAt8 = deviation;
+                    if (deviation <= 2 && seedsNeeded < 0) seedsNeeded = n;
+                    if (seedsNeeded > 0 && n >= 8) break;
+                }
+
+                long processTime = Long.MAX_VALUE, planeTime = Long.MAX_VALUE, graphTime = Long.MAX_VALUE;
+                for (int trial = 0; trial < 3; trial++) { // 取 3 次中的最小值，第一次含 JIT 预热
+                    IntelligentScissorsPart1 timed = new IntelligentScissorsPart1(
+                            new LoadedImage(sample.image, sample.gray.clone(), sample.backend, 0));
+                    timed.setCostModel(model);
+                    timed.setPyramidLevels(0);
+                    long startTime = System.nanoTime();
+                    timed.process();
+                    processTime = Math.min(processTime, System.nanoTime() - startTime);
+                    planeTime = Math.min(planeTime, timed.getStageTimings().get("costPlanes"));
+                    graphTime = Math.min(graphTime, timed.getStageTimings().get("graph"));
+                }
+
+                String row = String.format("\"%s\",%d,%.2f,%.1f,%.1f,%.1f", model.describe(), seedsNeeded,
+                        deviationAt8, processTime / 1e6, planeTime / 1e6, graphTime / 1e6);
+                writer.println(row);
+                System.out.println("Cost model: " + row);
+            }
+        }
+    }
+
+    // 沿圆周均匀放 n 个种子依次连接成闭合轮廓，返回轮廓像素到圆周的最大距离
+    private static double contourDeviation(IntelligentScissorsPart1 processor, int n, int cx, int cy, int radius) {
+        double max = 0;
+        for (int k = 0; k < n; k++) {
+            double a0 = 2 * Math.PI * k / n, a1 = 2 * Math.PI * (k + 1) / n;
+            int[] path = processor.computeShortestPath(
+                    (int) Math.round(cx + radius * Math.cos(a0)), (int) Math.round(cy + radius * Math.sin(a0)),
+                    (int) Math.round(cx + radius * Math.cos(a1)), (int) Math.round(cy + radius * Math.sin(a1)),
+                    PathStrategy.DIJKSTRA);
+            for (int p : path) {
+                double r = Math.hypot(p % processor.width - cx, p / processor.width - cy);
+                max = Math.max(max, Math.abs(r - radius));
+            }
+        }
+        return max;
+    }
+
+    private static void writeTiledRow(PrintWriter writer, String image, int query, long snapTime, long searchTime,
+                                      TiledPathSearch search, int pathLength, String matches, TiledCostMap tiled) {
+        Runtime runtime = Runtime.getRuntime();
+        String row = String.format("%s,%d,%.2f,%.2f,%d,%d,%s,%d,%d,%d,%.1f,%.1f,%.1f", image, query,
+                snapTime / 1e6, searchTime / 1e6, search.getSettledCount(), pathLength, matches,
+                tiled.getComputed(), tiled.getReloaded(), tiled.getEvicted(), tiled.residentBytes() / 1e6,
+                tiled.storedBytes() / 1e6, (runtime.totalMemory() - runtime.freeMemory()) / 1e6);
+        writer.println(row);
+        System.out.println("Tiled: " + row);
+    }
+
+    private static long directorySize(File dir) {
+        long bytes = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                bytes += file.length();
+            }
+        }
+        return bytes;
+    }
+
+    // 评估：path 上的点到 reference 路径的最大欧氏距离（有向 Hausdorff 距离）
+    private double maxDeviation(int[] path, int[] reference) {
+        double max = 0;
+        for (int p : path) {
+            int px = p % width, py = p / width;
+            long best = Long.MAX_VALUE;
+            for (int q : reference) {
+                long dx = q % width - px, dy = q / width - py;
+                best = Math.min(best, dx * dx + dy * dy);
+            }
+            max = Math.max(max, Math.sqrt(best));
+        }
+        return max;
+    }
+
+    private void saveToCSV(String outputDir) throws IOException {
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        String[] fileNames = {"pixels.csv", "Ix.csv", "Iy.csv", "G.csv", "f_G.csv"};
+        float[][] data = {toFloatArray(pixels), Ix, Iy, G, f_G};
+        for (int s = 0; s < fileNames.length; s++) {
+            try (PrintWriter writer = new PrintWriter(new File(outputDir + "/" + fileNames[s]))) {
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        writer.print(String.format("%.6f", data[s][y * width + x]));
+                        if (x < width - 1) {
+                            writer.print(",");
+                        }
+                    }
+                    writer.println();
+                }
+            }
+        }
+    }
+
+    private float[] toFloatArray(int[] array) {
+        float[] result = new float[array.length];
+        for (int i = 0; i < array.length; i++) {
+            result[i] = array[i];
+        }
+        return result;
+    }
+
+
+    public void process(double thresholdFraction) throws IOException {  //用于评估
+        awaitDiagnosticsExport(); // 模糊会原地改写 pixels，先等上一次导出和缓存写入写完
+        awaitCostMapStore();
+        Long decode = stageTimings.get("decode");
+        stageTimings.clear();
+        if (decode != null) {
+            stageTimings.put("decode", decode);
+        }
+
+        byte[] cacheKey = null;
+        if (costMapCache != null) {
+            long startTime = System.nanoTime();
+            cacheKey = CostMapCache.key(width, height, pixels, costMapParams(thresholdFraction));
+            stageTimings.put("cacheKey", System.nanoTime() - startTime);
+        }
+        if (cacheKey == null || !loadCostMaps(cacheKey, thresholdFraction)) {
+            double G_max = computeGradients();
+            if (nonMaxSuppression) {
+                suppressNonMaxima(); // 全局最大值一定是局部最大值，G_max 不变
+            }
+            computeGradientMagnitude(G_max, thresholdFraction);
+            computeCostPlanes();
+            if (edgeCostMode == EdgeCostMode.EAGER) {
+                buildGraph();
+            } else {
+                buildLazyGraph();
+            }
+            if (cacheKey != null) {
+                storeCostMaps(cacheKey, G_max);
+            }
+        }
+        buildRangeMax();
+        pyramid = null; // 旧图的金字塔失效，下一次金字塔查询时重建
+        exportDiagnostics();
+    }
+
+    // 最近一次 process() 的摘要：各阶段耗时、KD 树节点数、图和金字塔的内存。库方法本身不输出，
+    // 由 main 和评估代码按需打印（JMH 基准和批处理的计算线程里不应有控制台输出）
+    public String describeStages() {
+        StringBuilder summary = new StringBuilder("Stage timings (ms):");
+        for (Map.Entry<String, Long> stage : stageTimings.entrySet()) {
+            summary.append(String.format(" %s=%.1f", stage.getKey(), stage.getValue() / 1e6));
+        }
+        summary.append(String.format("; kdTree %d nodes", kdTreeNodes));
+        if (graph != null) {
+            summary.append(String.format("; graph %d pixels, %.1f MB", graph.size(), graph.memoryBytes() / 1e6));
+        }
+        if (pyramid != null) {
+            summary.append(String.format("; pyramid %d levels, %.1f MB", pyramidLevels, pyramid.memoryBytes() / 1e6));
+        }
+        return summary.toString();
+    }
+
+    // 中间平面的导出，format 为 null 时关闭（默认）。CSV 在 process() 中同步写出，NPY 在后台写出
+    public void setDiagnosticsExport(ExportFormat format, String outputDir) {
+        this.exportFormat = format;
+        this.exportDir = outputDir;
+    }
+
+    // 等待后台导出写完；导出失败时抛出 IOException
+    public void awaitDiagnosticsExport() throws IOException {
+        Future<?> export = pendingExport;
+        if (export == null) return;
+        pendingExport = null;
+        try {
+            export.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException("Diagnostics export failed", e.getCause());
+        }
+    }
+
+    private void exportDiagnostics() throws IOException {
+        if (exportFormat == null) return;
+        long startTime = System.nanoTime();
+        if (exportFormat == ExportFormat.CSV) {
+            saveToCSV(exportDir);
+            stageTimings.put("csv", System.nanoTime() - startTime);
+        } else {
+            pendingExport = DiagnosticsExporter.exportNpyAsync(new File(exportDir), width, height, pixels, Ix, Iy, G, f_G);
+            stageTimings.put("npySubmit", System.nanoTime() - startTime);
+        }
+    }
+
+    // 代价图缓存目录，null 表示关闭（默认）。开启后 process() 先按灰度内容和参数查找缓存，
+    // 命中时跳过梯度、归一化和建图；未命中时照常计算并在后台写入缓存。目录的总大小见 CostMapCache.fromSystemProperty
+    public void setCostMapCacheDir(File dir) {
+        this.costMapCache = dir == null ? null : CostMapCache.fromSystemProperty(dir);
+    }
+
+    // 评估：缓存命中和未命中的次数
+    public int getCostMapCacheHits() {
+        return costMapCache == null ? 0 : costMapCache.getHits();
+    }
+
+    public int getCostMapCacheMisses() {
+        return costMapCache == null ? 0 : costMapCache.getMisses();
+    }
+
+    // 在下一次 process() 时生效。开启后 G、f_G、KD 树和边权都基于细化后的边缘
+    public void setNonMaxSuppression(boolean enabled) {
+        this.nonMaxSuppression = enabled;
+    }
+
+    public boolean isNonMaxSuppression() {
+        return nonMaxSuppression;
+    }
+
+    // 在下一次 process() 时生效。三种方式的路径相同，惰性方式省去建图的时间和每像素 32 字节的边权
+    public void setEdgeCostMode(EdgeCostMode mode) {
+        this.edgeCostMode = mode;
+    }
+
+    public EdgeCostMode getEdgeCostMode() {
+        return edgeCostMode;
+    }
+
+    // 在下一次 process() 时生效；默认取系统属性 scissors.costModel（未设置时为只有 1/(1+G) 的原始代价）
+    void setCostModel(CostModel model) {
+        this.costModel = model;
+    }
+
+    CostModel getCostModel() {
+        return costModel;
+    }
+
+    // 各阶段最近一次的耗时（纳秒），按执行顺序：decode 在构造时执行，其余在 process() 中
+    public Map<String, Long> getStageTimings() {
+        return new LinkedHashMap<>(stageTimings);
+    }
+
+    // 图像处理共用线程池的大小，对之后的所有实例生效
+    public static void setProcessingThreads(int threads) {
+        ProcessingEngine.setSharedParallelism(threads);
+    }
+
+    public static int getProcessingThreads() {
+        return ProcessingEngine.shared().getParallelism();
+    }
+    public void process() throws IOException {
+        process(0.1); // 使用默认阈值 0.1，与原始代码一致
+    }
+
+    public PixelGraph getGraph() {
+        return graph;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // 以下平面均按行展开，下标 y * width + x
+    public float[] getG() {
+        return G;
+    }
+
+    public float[] getFG() {
+        return f_G;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public BufferedImage getGradientImage() {
+        BufferedImage gradientImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        double maxG = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (G[y * width + x] > maxG) {
+                    maxG = G[y * width + x];
+                }
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = maxG == 0 ? 0 : (int) (G[y * width + x] * 255 / maxG);
+                int rgb = (value << 16) | (value << 8) | value;
+                gradientImage.setRGB(x, y, rgb);
+            }
+        }
+        return gradientImage;
+    }
+
+    public BufferedImage getGrayImage() {
+        BufferedImage grayImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = pixels[y * width + x];
+                int rgb = (value << 16) | (value << 8) | value;
+                grayImage.setRGB(x, y, rgb);
+            }
+        }
+        return grayImage;
+    }
+    // 不带参数时在 sample.png 上运行全部评估；带参数时逐个处理给出的图像，输出各阶段耗时、
+    // JVM 启动到处理完成的时间和堆占用（用于单独衡量无界面 jar 的启动时间和内存占用）
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            try {
+                for (String imagePath : args) {
+                    IntelligentScissorsPart1 processor = new IntelligentScissorsPart1(imagePath);
+                    processor.process();
+                    System.out.println(imagePath + ": " + processor.describeStages());
+                }
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+                System.exit(1);
+            }
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("JVM uptime: %d ms, heap used: %.1f MB%n",
+                    ManagementFactory.getRuntimeMXBean().getUptime(),
+                    (runtime.totalMemory() - runtime.freeMemory()) / 1e6);
+            return;
+        }
+        try {
+            IntelligentScissorsPart1 processor = new IntelligentScissorsPart1("sample.png");
+            processor.process();
+            System.out.println(processor.describeStages());
+            processor.evaluatePerformance("output");
+            processor.evaluatePathPerformance("output");
+            processor.evaluateSeedTreeCache("output");
+            processor.evaluatePyramidPerformance("output");
+            processor.evaluateKernelPerformance("output");
+            evaluateDecodePerformance("sample.png", "output");
+            processor.evaluateExportPerformance("output");
+            evaluateTiledPerformance("sample.png", "output");
+            evaluateEdgeCostModes("sample.png", "output");
+            evaluateCostModels("sample.png", "output");
+            System.out.println("Performance evaluation completed, results saved to “output/performance.csv");
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package scissors;
+
+import java.util.Arrays;
+
+// 事件处理耗时统计：次数、平均、最大，以及最近 WINDOW 次中的 p99（纳秒）
+class LatencyStats {
+    private static final int WINDOW = 1024;
+
+    private final long[] recent = new long[WINDOW];
+    private long count, totalNanos, maxNanos, lastNanos;
+
+    synchronized void record(long nanos) {
+        recent[(int) (count % WINDOW)] = nanos;
+        count++;
+        totalNanos += nanos;
+        lastNanos = nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    synchronized long getCount() {
+        return count;
+    }
+
+    synchronized long getLastNanos() {
+        return lastNanos;
+    }
+
+    synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    synchronized double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    synchronized long getPercentileNanos(double p) {
+        int n = (int) Math.min(count, WINDOW);
+        if (n == 0) return 0;
+        long[] sorted = Arrays.copyOf(recent, n);
+        Arrays.sort(sorted);
+        return sorted[Math.min(n - 1, (int) Math.ceil(p * n) - 1)];
+    }
+
+    synchronized void reset() {
+        count = totalNanos = maxNanos = lastNanos = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("n=%d last=%.2fms avg=%.2fms p99=%.2fms max=%.2fms",
+                count, lastNanos / 1e6, getMeanNanos() / 1e6, getPercentileNanos(0.99) / 1e6, maxNanos / 1e6);
+    }
+}
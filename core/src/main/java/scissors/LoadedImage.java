@@ -0,0 +1,28 @@
+package scissors;
+
+import java.awt.image.BufferedImage;
+
+// 解码结果：显示用的彩色图像和处理用的灰度平面（下标 y * width + x），二者在同一次遍历中生成，
+// GUI 和 IntelligentScissorsPart1 共用同一份，不再各自解码一次。
+// 灰度平面交给 IntelligentScissorsPart1 之后归它所有（模糊结果会写回这个数组）
+class LoadedImage {
+    final int width, height;
+    final BufferedImage image;
+    final int[] gray;
+    final String backend;    // 解码所用的后端
+    final long decodeNanos;  // 解码加灰度转换的总耗时
+
+    LoadedImage(BufferedImage image, int[] gray, String backend, long decodeNanos) {
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.image = image;
+        this.gray = gray;
+        this.backend = backend;
+        this.decodeNanos = decodeNanos;
+    }
+
+    // 与原来逐像素 getRGB 时相同的灰度公式
+    static int toGray(int r, int g, int b) {
+        return (int) (0.299 * r + 0.587 * g + 0.114 * b);
+    }
+}
@@ -0,0 +1,48 @@
+package scissors;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Area;
+import java.awt.geom.GeneralPath;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+// 把闭合轮廓内的原图画到黑色背景上（与 GUI 保存的 output.png 相同），GUI 和批处理共用
+final class MaskRenderer {
+    private MaskRenderer() {
+    }
+
+    // paths 为依次相连的路径段（像素下标 y * width + x），首尾自动闭合
+    static BufferedImage render(BufferedImage original, List<int[]> paths) {
+        int width = original.getWidth();
+        int height = original.getHeight();
+        BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = output.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, width, height);
+        GeneralPath combinedPath = new GeneralPath();
+        boolean started = false;
+        for (int[] path : paths) {
+            if (path != null && path.length > 0) {
+                if (!started) {
+                    combinedPath.moveTo(path[0] % width, path[0] / width);
+                    started = true;
+                }
+                for (int i = 1; i < path.length; i++) {
+                    combinedPath.lineTo(path[i] % width, path[i] / width);
+                }
+            }
+        }
+        if (started) {
+            combinedPath.closePath();
+            g2d.setClip(new Area(combinedPath));
+            g2d.drawImage(original, 0, 0, null);
+            g2d.setClip(null);
+        }
+        g2d.dispose();
+        return output;
+    }
+}
@@ -0,0 +1,192 @@
+package scissors;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// 后台路径服务：种子树在专用线程上分批展开，每批结束后发布进度和等待中的结果。
+// 调用方线程（GUI 中是 EDT）只读取已经出堆的像素，拿不到锁或目标还没出堆时立即返回 null，从不等待搜索。
+// 新种子让旧树的剩余展开立即作废；右键重置让所有排队的工作作废。
+// 给了 SeedTreeCache 时，撤销或重新点回之前的种子，只要那棵树已展开完毕并仍在缓存中，就直接恢复而不再搜索
+class PathService {
+    private static final int CHUNK_SIZE = 20000; // 每批出堆像素数，批与批之间检查是否已作废
+
+    private final SeedTree tree;
+    private final ExecutorService executor;
+    private final Executor callbackExecutor; // 回调在哪里执行，GUI 传入 SwingUtilities::invokeLater
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger seedGeneration = new AtomicInteger();  // 新种子或重置时递增，旧的展开任务据此退出
+    private final AtomicInteger resetGeneration = new AtomicInteger(); // 仅重置时递增，作废所有排队任务
+    private final AtomicInteger pendingTarget = new AtomicInteger(-1); // 最近一次请求了但还没出堆的目标
+    private volatile int currentSeed = -1;
+    private volatile int settledCount; // 已发布的出堆像素数
+    private volatile Consumer<int[]> hoverListener;
+
+    PathService(PixelGraph graph, Executor callbackExecutor) {
+        this(graph, null, callbackExecutor);
+    }
+
+    PathService(PixelGraph graph, SeedTreeCache cache, Executor callbackExecutor) {
+        this.tree = new SeedTree(graph, cache);
+        this.callbackExecutor = callbackExecutor;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "path-service");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 等待中的悬停目标出堆后，用这条路径回调
+    void setHoverListener(Consumer<int[]> listener) {
+        this.hoverListener = listener;
+    }
+
+    // 放置新种子。segmentListener 不为 null 时，先在上一个种子的树上求出到 seed 的一段并回调，
+    // 再把树换成以 seed 为根并在后台继续展开
+    void placeSeed(int seed, Consumer<int[]> segmentListener) {
+        if (seed == currentSeed) {
+            return;
+        }
+        int seedGen = seedGeneration.incrementAndGet();
+        int resetGen = resetGeneration.get();
+        currentSeed = seed;
+        pendingTarget.set(-1);
+
+        submit(() -> {
+            if (segmentListener != null) {
+                int[] segment = expandTo(seed, resetGen);
+                if (segment == null) return; // 已重置
+                deliver(segmentListener, segment, resetGen, resetGeneration);
+            }
+            lock.lock();
+            try {
+                if (resetGeneration.get() != resetGen) return;
+                tree.reset(seed);
+                settledCount = 0;
+            } finally {
+                lock.unlock();
+            }
+            expandStep(seedGen);
+        });
+    }
+
+    // 在当前树上求到 target 的路径（例如闭合轮廓），结果通过 listener 回调
+    void requestPath(int target, Consumer<int[]> listener) {
+        int resetGen = resetGeneration.get();
+        submit(() -> {
+            int[] path = expandTo(target, resetGen);
+            if (path != null) {
+                deliver(listener, path, resetGen, resetGeneration);
+            }
+        });
+    }
+
+    // 非阻塞查询：目标已出堆时返回路径，否则记下目标等后台线程算好后回调 hoverListener，并返回 null
+    int[] tryPathTo(int target) {
+        if (lock.tryLock()) {
+            try {
+                if (tree.getSeed() == currentSeed && tree.isSettled(target)) {
+                    pendingTarget.set(-1);
+                    return tree.pathTo(target);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        pendingTarget.set(target);
+        return null;
+    }
+
+    // 右键重置：作废所有排队和正在执行的工作
+    void reset() {
+        resetGeneration.incrementAndGet();
+        seedGeneration.incrementAndGet();
+        currentSeed = -1;
+        pendingTarget.set(-1);
+        settledCount = 0;
+    }
+
+    int getCurrentSeed() {
+        return currentSeed;
+    }
+
+    int getSettledCount() {
+        return settledCount;
+    }
+
+    void shutdown() {
+        reset();
+        executor.shutdownNow();
+    }
+
+    // 后台展开一批；未完成且种子未变时把下一批重新排队，让 requestPath 等任务可以插在批与批之间
+    private void expandStep(int seedGen) {
+        if (seedGeneration.get() != seedGen || stopped()) return; // 种子已变或已关闭，旧树的剩余展开作废
+        int[] hover = null;
+        boolean complete;
+        lock.lock();
+        try {
+            tree.expand(-1, CHUNK_SIZE);
+            settledCount = tree.getSettledCount();
+            int target = pendingTarget.get();
+            if (target >= 0 && tree.isSettled(target) && pendingTarget.compareAndSet(target, -1)) {
+                hover = tree.pathTo(target);
+            }
+            complete = tree.isComplete();
+        } finally {
+            lock.unlock();
+        }
+        Consumer<int[]> listener = hoverListener;
+        if (hover != null && listener != null) {
+            deliver(listener, hover, seedGen, seedGeneration);
+        }
+        if (!complete && seedGeneration.get() == seedGen) {
+            submit(() -> expandStep(seedGen));
+        }
+    }
+
+    // 在当前树上分批扩展直到 target 出堆；期间发生重置或服务关闭时返回 null
+    private int[] expandTo(int target, int resetGen) {
+        while (true) {
+            if (stopped()) return null;
+            lock.lock();
+            try {
+                if (resetGeneration.get() != resetGen) return null;
+                if (tree.getSeed() < 0) return new int[0];
+                if (tree.expand(target, CHUNK_SIZE) || tree.isComplete()) {
+                    settledCount = tree.getSettledCount();
+                    return tree.pathTo(target);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // shutdown() 之后（shutdownNow 会中断正在执行的一批）不再继续展开
+    private boolean stopped() {
+        return executor.isShutdown() || Thread.currentThread().isInterrupted();
+    }
+
+    // 排队到后台线程；shutdown() 与排队之间存在竞争，关闭后被拒绝的任务直接丢弃
+    private void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 服务已关闭，没有需要做的工作
+        }
+    }
+
+    // 回调到 callbackExecutor 上执行，执行前再次确认结果没有过期
+    private void deliver(Consumer<int[]> listener, int[] path, int generation, AtomicInteger counter) {
+        callbackExecutor.execute(() -> {
+            if (counter.get() == generation) {
+                listener.accept(path);
+            }
+        });
+    }
+}
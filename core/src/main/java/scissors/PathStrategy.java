@@ -0,0 +1,10 @@
+package scissors;
+
+// 点到点最短路的搜索策略。前三种的结果都是最优路径，区别只在于访问的像素数；
+// DIAL 在量化后的整数代价上求最优，按原始代价计算可能略差
+enum PathStrategy {
+    DIJKSTRA,      // 单向 Dijkstra，同一起点的查询会从上次的边界继续
+    ASTAR,         // A*，启发函数为 Chebyshev 距离 × 最小单步代价
+    BIDIRECTIONAL, // 双向 Dijkstra，反向搜索沿入边展开
+    DIAL           // Dial 桶队列，边权量化为 1..255 的整数
+}
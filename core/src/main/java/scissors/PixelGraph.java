@@ -0,0 +1,296 @@
+package scissors;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 像素 8 邻接图：不再为每个像素创建 Node/Link 对象，
+// 每个像素 8 个方向的边权存放在一个扁平 float 数组中，邻居通过下标运算得到。
+// 惰性模式（lazy）不分配 costs，只保留每个像素的节点代价（每像素 4 字节，是 costs 的 1/8，见 CostModel），
+// 搜索时按 buildGraph 相同的公式现算边权（终点的节点代价，对角线再乘 sqrt(2)，有方向项时再查表加上）；
+// 可选按 MEMO_TILE x MEMO_TILE 分块记忆算过的边权，只有搜索走到的分块才占内存。
+// 映射模式（mapped）的边权与立即模式相同，但留在代价图缓存文件的内存映射中（CostMapCache），不复制到堆里；
+// 惰性模式的节点代价和方向平面也可以直接使用缓存文件的映射（lazyMapped）
+class PixelGraph {
+    // 方向顺序与原 buildGraph 中的 dx/dy 一致
+    static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    static final int DIRECTIONS = 8;
+    private static final float DIAGONAL = (float) Math.sqrt(2);
+    private static final int MEMO_SHIFT = 6;
+    private static final int MEMO_TILE = 1 << MEMO_SHIFT; // 记忆分块的边长（像素）
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    final long version = VERSIONS.incrementAndGet(); // 代价图版本：每建一次图（新图像、新代价模型、读缓存）都不同
+
+    final int width, height;
+    final int[] offset;  // 每个方向对应的像素下标偏移 dy * width + dx
+    final float[] costs; // costs[p * 8 + dir]，越界方向为 +Infinity；惰性模式和映射模式下为 null
+    private final FloatBuffer[] mappedCosts; // 映射模式：每段 1 << mappedShift 个像素的边权，否则为 null
+    private final FloatBuffer[] mappedNodeCost; // 映射的惰性模式：每段 1 << mappedShift 个像素的节点代价，否则为 null
+    private final ByteBuffer[] mappedDirection; // 映射的惰性模式且有方向项时：方向区间，分段同上
+    private final int mappedShift;
+    final float[] nodeCost; // 惰性模式：走到 p 的直线代价（CostModel.nodeCost）；立即模式和映射模式下为 null
+    final byte[] direction;        // 惰性模式且有方向项时：每个像素的方向区间，否则为 null
+    final float[] directionTable;  // 与方向区间配套的方向项表（CostModel.directionTable），没有方向项时为 null
+    float minStepCost;   // 任意一步的最小代价，A* 的启发函数用它保证可采纳
+
+    private final AtomicReferenceArray<float[]> memo; // 惰性模式下每个分块记忆的边权，null 表示不记忆
+    private final int memoTilesX;
+    private final AtomicInteger memoTileCount = new AtomicInteger();
+
+    PixelGraph(int width, int height) {
+        this(width, height, new float[width * height * DIRECTIONS], null, null, null, null, null, 0, null, false);
+    }
+
+    private PixelGraph(int width, int height, float[] costs, FloatBuffer[] mappedCosts,
+                       float[] nodeCost, byte[] direction, FloatBuffer[] mappedNodeCost, ByteBuffer[] mappedDirection,
+                       int mappedShift, float[] directionTable, boolean memoise) {
+        this.width = width;
+        this.height = height;
+        this.offset = new int[DIRECTIONS];
+        for (int i = 0; i < DIRECTIONS; i++) {
+            offset[i] = DY[i] * width + DX[i];
+        }
+        this.costs = costs;
+        this.mappedCosts = mappedCosts;
+        this.nodeCost = nodeCost;
+        this.direction = direction;
+        this.mappedNodeCost = mappedNodeCost;
+        this.mappedDirection = mappedDirection;
+        this.mappedShift = mappedShift;
+        this.directionTable = directionTable;
+        this.memoTilesX = (width + MEMO_TILE - 1) >> MEMO_SHIFT;
+        int memoTiles = memoTilesX * ((height + MEMO_TILE - 1) >> MEMO_SHIFT);
+        this.memo = memoise ? new AtomicReferenceArray<>(memoTiles) : null;
+    }
+
+    // 映射模式：segments[i] 依次存放第 i << pixelShift 个像素起的边权（布局与 costs 相同）
+    static PixelGraph mapped(int width, int height, FloatBuffer[] segments, int pixelShift) {
+        return new PixelGraph(width, height, null, segments, null, null, null, null, pixelShift, null, false);
+    }
+
+    // 惰性图：边权在搜索时从 nodeCost（和方向项）现算，memoise 为 true 时按分块记忆；没有方向项时 direction 为 null
+    static PixelGraph lazy(int width, int height, float[] nodeCost, byte[] direction, float[] directionTable,
+                           boolean memoise) {
+        return new PixelGraph(width, height, null, null, nodeCost, direction, null, null, 0,
+                direction != null ? directionTable : null, memoise);
+    }
+
+    // 映射的惰性图：节点代价和方向区间按段留在映射中（第 i 段从第 i << pixelShift 个像素起），其余与 lazy 相同
+    static PixelGraph lazyMapped(int width, int height, FloatBuffer[] nodeCost, ByteBuffer[] direction,
+                                 int pixelShift, float[] directionTable, boolean memoise) {
+        return new PixelGraph(width, height, null, null, null, null, nodeCost, direction, pixelShift,
+                direction != null ? directionTable : null, memoise);
+    }
+
+    boolean isLazy() {
+        return nodeCost != null || mappedNodeCost != null;
+    }
+
+    boolean isMapped() {
+        return mappedCosts != null || mappedNodeCost != null;
+    }
+
+    // 走到梯度为 gradient 的像素的基础代价（直线方向），对角线方向再乘 sqrt(2)
+    static float baseCost(float gradient) {
+        return 1.0f / (1.0f + gradient);
+    }
+
+    int size() {
+        return width * height;
+    }
+
+    int index(int x, int y) {
+        return y * width + x;
+    }
+
+    int x(int p) {
+        return p % width;
+    }
+
+    int y(int p) {
+        return p / width;
+    }
+
+    // 从 p 沿 dir 方向走一步的代价，越界返回 +Infinity
+    float cost(int p, int dir) {
+        if (costs != null) {
+            return costs[p * DIRECTIONS + dir];
+        }
+        if (mappedCosts != null) {
+            return mappedCosts[p >>> mappedShift].get(((p & ((1 << mappedShift) - 1)) << 3) + dir);
+        }
+        int nx = p % width + DX[dir], ny = p / width + DY[dir];
+        if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+            return Float.POSITIVE_INFINITY;
+        }
+        int q = ny * width + nx;
+        float basecost = node(q);
+        float cost = DX[dir] != 0 && DY[dir] != 0 ? basecost * DIAGONAL : basecost;
+        if (directionTable != null) {
+            cost += directionTable[CostModel.directionRow(bin(p)) + bin(q) * DIRECTIONS + dir];
+        }
+        return cost;
+    }
+
+    // 惰性模式下 q 的节点代价和方向区间（数组或映射）
+    private float node(int q) {
+        if (nodeCost != null) {
+            return nodeCost[q];
+        }
+        return mappedNodeCost[q >>> mappedShift].get(q & ((1 << mappedShift) - 1));
+    }
+
+    private int bin(int q) {
+        if (direction != null) {
+            return direction[q];
+        }
+        return mappedDirection[q >>> mappedShift].get(q & ((1 << mappedShift) - 1));
+    }
+
+    // 搜索循环配合 edgeCosts 使用的缓冲区：立即模式下就是 costs，惰性和映射模式下是 8 个元素的临时数组
+    float[] edgeBuffer() {
+        return costs != null ? costs : new float[DIRECTIONS];
+    }
+
+    // 像素 p 的 8 个方向代价位于 edges[返回值 .. 返回值 + 7]（edges 来自 edgeBuffer）。
+    // 立即模式下直接返回 p * 8，不复制；映射模式下从映射复制、惰性模式下现算（或从记忆分块复制）到 edges[0..7]
+    int edgeCosts(int p, float[] edges) {
+        if (costs != null) {
+            return p * DIRECTIONS;
+        }
+        if (mappedCosts != null) {
+            mappedCosts[p >>> mappedShift].get((p & ((1 << mappedShift) - 1)) << 3, edges, 0, DIRECTIONS);
+            return 0;
+        }
+        int y = p / width, x = p - y * width;
+        if (memo == null) {
+            computeEdgeCosts(x, y, edges, 0);
+            return 0;
+        }
+        int tile = (y >> MEMO_SHIFT) * memoTilesX + (x >> MEMO_SHIFT);
+        float[] block = memo.get(tile);
+        if (block == null) {
+            block = fillMemoTile(tile);
+        }
+        int local = ((y & (MEMO_TILE - 1)) << MEMO_SHIFT) | (x & (MEMO_TILE - 1));
+        System.arraycopy(block, local * DIRECTIONS, edges, 0, DIRECTIONS);
+        return 0;
+    }
+
+    // 与 buildGraph 相同的公式：终点的基础代价，对角线方向乘 sqrt(2)，越界方向为 +Infinity
+    private void computeEdgeCosts(int x, int y, float[] out, int base) {
+        if (nodeCost != null && x > 0 && x < width - 1 && y > 0 && y < height - 1) {
+            // 内部像素 8 个方向都在图内，按 DX/DY 的顺序展开，省去越界判断
+            int p = y * width + x;
+            float[] c = nodeCost;
+            out[base] = c[p - width - 1] * DIAGONAL;
+            out[base + 1] = c[p - 1];
+            out[base + 2] = c[p + width - 1] * DIAGONAL;
+            out[base + 3] = c[p - width];
+            out[base + 4] = c[p + width];
+            out[base + 5] = c[p - width + 1] * DIAGONAL;
+            out[base + 6] = c[p + 1];
+            out[base + 7] = c[p + width + 1] * DIAGONAL;
+            if (direction != null) {
+                addDirectionCosts(p, out, base);
+            }
+            return;
+        }
+        for (int i = 0; i < DIRECTIONS; i++) {
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+                int q = ny * width + nx;
+                float basecost = node(q);
+                out[base + i] = DX[i] != 0 && DY[i] != 0 ? basecost * DIAGONAL : basecost;
+                if (directionTable != null) {
+                    out[base + i] += directionTable[CostModel.directionRow(bin(y * width + x)) + bin(q) * DIRECTIONS + i];
+                }
+            } else {
+                out[base + i] = Float.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    // 内部像素 p 的 8 个方向加上方向项（查表）
+    private void addDirectionCosts(int p, float[] out, int base) {
+        byte[] bins = direction;
+        float[] table = directionTable;
+        int row = CostModel.directionRow(bins[p]);
+        for (int i = 0; i < DIRECTIONS; i++) {
+            out[base + i] += table[row + bins[p + offset[i]] * DIRECTIONS + i];
+        }
+    }
+
+    // 两个线程同时算同一块时结果相同，只保留先发布的那一份
+    private float[] fillMemoTile(int tile) {
+        int x0 = (tile % memoTilesX) << MEMO_SHIFT, y0 = (tile / memoTilesX) << MEMO_SHIFT;
+        float[] block = new float[MEMO_TILE * MEMO_TILE * DIRECTIONS];
+        for (int y = y0; y < Math.min(height, y0 + MEMO_TILE); y++) {
+            for (int x = x0; x < Math.min(width, x0 + MEMO_TILE); x++) {
+                computeEdgeCosts(x, y, block, (((y - y0) << MEMO_SHIFT) | (x - x0)) * DIRECTIONS);
+            }
+        }
+        if (memo.compareAndSet(tile, null, block)) {
+            memoTileCount.incrementAndGet();
+            return block;
+        }
+        return memo.get(tile);
+    }
+
+    // dir 的反方向（DX/DY 的排列使得反方向恰好是 7 - dir）
+    static int opposite(int dir) {
+        return DIRECTIONS - 1 - dir;
+    }
+
+    int neighbor(int p, int dir) {
+        return p + offset[dir];
+    }
+
+    // p 到相邻像素 q 的方向编号，不相邻时返回 -1
+    int direction(int p, int q) {
+        int dx = x(q) - x(p);
+        int dy = y(q) - y(p);
+        for (int i = 0; i < DIRECTIONS; i++) {
+            if (DX[i] == dx && DY[i] == dy) return i;
+        }
+        return -1;
+    }
+
+    // 评估：按边权累加一条路径的总代价
+    double pathCost(int[] path) {
+        double total = 0;
+        for (int i = 1; i < path.length; i++) {
+            total += cost(path[i - 1], direction(path[i - 1], path[i]));
+        }
+        return total;
+    }
+
+    // 图本身占用的堆内存（字节）；惰性模式下为基础代价平面加上已记忆的分块，映射的平面在页缓存中，不计入
+    long memoryBytes() {
+        long bytes = (long) offset.length * Integer.BYTES;
+        if (costs != null) {
+            return bytes + (long) costs.length * Float.BYTES;
+        }
+        if (mappedCosts != null) {
+            return bytes;
+        }
+        if (nodeCost != null) {
+            bytes += (long) nodeCost.length * Float.BYTES;
+        }
+        if (direction != null) {
+            bytes += direction.length;
+        }
+        if (directionTable != null) {
+            bytes += (long) directionTable.length * Float.BYTES;
+        }
+        if (memo != null) {
+            bytes += (long) memo.length() * 4 + (long) memoTileCount.get() * MEMO_TILE * MEMO_TILE * DIRECTIONS * Float.BYTES;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,71 @@
+package scissors;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// 图像处理的共用执行引擎：一个长期存在的 ForkJoinPool，所有图像、所有 process() 调用共用，
+// 不再每个阶段新建和关闭一个固定线程池。每个阶段把图像切成若干行条带（tile）作为任务，
+// 任务区间对半拆分，空闲线程可以窃取别的线程还没做的那一半，条带耗时不均时也能保持负载均衡。
+// 线程数默认取系统属性 scissors.threads，未设置时为 CPU 核数
+class ProcessingEngine {
+    private static ProcessingEngine shared;
+
+    private final ForkJoinPool pool;
+
+    ProcessingEngine(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism)); // 工作线程是守护线程
+    }
+
+    static synchronized ProcessingEngine shared() {
+        if (shared == null) {
+            shared = new ProcessingEngine(Integer.getInteger("scissors.threads",
+                    Runtime.getRuntime().availableProcessors()));
+        }
+        return shared;
+    }
+
+    // 更换共用引擎的线程数；旧线程池在已提交的任务完成后关闭
+    static synchronized void setSharedParallelism(int parallelism) {
+        if (shared != null) {
+            if (shared.getParallelism() == parallelism) return;
+            shared.pool.shutdown();
+        }
+        shared = new ProcessingEngine(parallelism);
+    }
+
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // 并行执行 task(0) .. task(count-1) 并等待全部完成，返回耗时（纳秒）。任务中的异常在调用线程上重新抛出
+    long forEach(int count, IntConsumer task) {
+        long start = System.nanoTime();
+        if (count > 0) {
+            pool.invoke(new RangeTask(0, count, task));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+        private final IntConsumer task;
+
+        RangeTask(int from, int to, IntConsumer task) {
+            this.from = from;
+            this.to = to;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                task.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, task), new RangeTask(mid, to, task));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package scissors;
+
+// 梯度平面上的二维区间最大值（稀疏表）：第 k 层记录以 (x, y) 为左上角、边长 2^k 的正方形块中梯度最大的像素，
+// 第 k 层由第 k-1 层的 4 个相邻块合并得到。查询窗口时取不超过窗口边长的最大层，用 4 个互相重叠的正方形
+// 盖住窗口（窗口被图像边界裁成长条时用更多块），与窗口大小无关，查询中不分配对象。
+// 每层存块内最大值相对块左上角的偏移（dy << 8 | dx，一个 short），每层 2 B/px，层数限制在 MAX_LEVEL（共 12 B/px）。
+// 窗口 windowSize 实际覆盖 2 * (windowSize / 2) + 1 个像素，上限 MAX_WINDOW = 2^(MAX_LEVEL+1) - 1 时覆盖不超过
+// 2^(MAX_LEVEL+1) - 1 个像素，两个 2^MAX_LEVEL 的块就能盖住一边，最多查 4 个块（被图像边界裁成长条时为 O(长/短)）；
+// 更大的窗口会被拒绝，调用方改用 KD 树。梯度相同时取光栅顺序靠前的像素，与暴力搜索一致
+class RangeMaxIndex {
+    static final int MAX_LEVEL = 6;                    // 最大块边长 64
+    static final int MAX_WINDOW = (2 << MAX_LEVEL) - 1; // 127，GUI 的吸附窗口为 25
+    private static final int BAND_HEIGHT = 64;
+
+    private final int width, height;
+    private final float[] G;
+    private final short[][] levels; // levels[k][y * width + x]，k >= 1；第 0 层就是像素本身
+    private int blocksRead;         // 评估：上一次查询读取的块数
+
+    RangeMaxIndex(float[] G, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.G = G;
+        int top = 0;
+        while (top < MAX_LEVEL && (2 << top) <= Math.min(width, height)) {
+            top++;
+        }
+        levels = new short[top + 1][];
+        float[] childMax = G; // 上一层每个块的最大梯度，只在建表时保留，按顺序读取
+        float[] blockMax = top > 1 ? new float[width * height] : null;
+        for (int k = 1; k <= top; k++) {
+            levels[k] = new short[width * height];
+            float[] next = k == top ? null : blockMax;
+            buildLevel(k, childMax, next);
+            if (next != null) {
+                blockMax = childMax == G ? new float[width * height] : childMax;
+                childMax = next;
+            }
+        }
+    }
+
+    // 块 (x, y) 的 2^k 边长由 4 个 2^(k-1) 的子块合并：子块的偏移加上子块相对块的位置就是块内偏移，
+    // 偏移按 dy, dx 比较即光栅顺序。childMax 为子块的最大梯度，blockMax（最后一层为 null）接收本层的结果。
+    // 各条带互不相交，并行写入
+    private void buildLevel(int k, float[] childMax, float[] blockMax) {
+        int half = 1 << (k - 1);
+        int side = 1 << k;
+        int rows = height - side + 1;
+        int cols = width - side + 1;
+        short[] level = levels[k];
+        short[] child = levels[k - 1]; // k = 1 时为 null，子块偏移都是 0
+        int[] childShift = { 0, half, half << 8, half << 8 | half };
+        int[] childIndex = { 0, half, half * width, half * width + half };
+        ProcessingEngine.shared().forEach((rows + BAND_HEIGHT - 1) / BAND_HEIGHT, b -> {
+            int yEnd = Math.min(rows, (b + 1) * BAND_HEIGHT);
+            for (int y = b * BAND_HEIGHT; y < yEnd; y++) {
+                for (int x = 0; x < cols; x++) {
+                    int p = y * width + x;
+                    int best = 0;
+                    float bestG = childMax[p];
+                    for (int c = 1; c < 4; c++) {
+                        float g = childMax[p + childIndex[c]];
+                        if (g > bestG) {
+                            best = c;
+                            bestG = g;
+                        } else if (g == bestG && offset(child, p, c, childIndex, childShift)
+                                < offset(child, p, best, childIndex, childShift)) {
+                            best = c;
+                        }
+                    }
+                    level[p] = (short) offset(child, p, best, childIndex, childShift);
+                    if (blockMax != null) {
+                        blockMax[p] = bestG;
+                    }
+                }
+            }
+        });
+    }
+
+    // 第 c 个子块中最大值相对块左上角的偏移
+    private static int offset(short[] child, int p, int c, int[] childIndex, int[] childShift) {
+        return (child == null ? 0 : child[p + childIndex[c]] & 0xFFFF) + childShift[c];
+    }
+
+    int getBlocksRead() {
+        return blocksRead;
+    }
+
+    long memoryBytes() {
+        return (long) (levels.length - 1) * width * height * Short.BYTES;
+    }
+
+    // 以 (cx, cy) 为中心、边长 windowSize 的窗口（裁到图像内）中梯度最大的像素下标，窗口与图像不相交时返回 -1
+    int findStrongest(int cx, int cy, int windowSize) {
+        if (windowSize > MAX_WINDOW) {
+            throw new IllegalArgumentException("窗口边长 " + windowSize + " 超过上限 " + MAX_WINDOW);
+        }
+        int half = windowSize / 2;
+        int x0 = Math.max(0, cx - half), x1 = Math.min(width - 1, cx + half);
+        int y0 = Math.max(0, cy - half), y1 = Math.min(height - 1, cy + half);
+        blocksRead = 0;
+        if (x0 > x1 || y0 > y1) return -1;
+
+        int k = 0;
+        int shorter = Math.min(x1 - x0 + 1, y1 - y0 + 1);
+        while (k + 1 < levels.length && (2 << k) <= shorter) {
+            k++;
+        }
+        int side = 1 << k;
+        int best = -1;
+        for (int y = y0; ; y += side) {
+            int by = Math.min(y, y1 - side + 1);
+            for (int x = x0; ; x += side) {
+                int bx = Math.min(x, x1 - side + 1);
+                best = better(argmax(k, bx, by), best);
+                blocksRead++;
+                if (bx == x1 - side + 1) break;
+            }
+            if (by == y1 - side + 1) break;
+        }
+        return best;
+    }
+
+    private int argmax(int k, int x, int y) {
+        int p = y * width + x;
+        if (k == 0) return p;
+        int offset = levels[k][p] & 0xFFFF;
+        return p + (offset >>> 8) * width + (offset & 0xFF);
+    }
+
+    private int better(int a, int b) {
+        if (b < 0 || G[a] > G[b] || (G[a] == G[b] && a < b)) return a;
+        return b;
+    }
+}
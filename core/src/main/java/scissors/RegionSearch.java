@@ -0,0 +1,133 @@
+package scissors;
+
+// 限定区域的 Dijkstra：只在种子与目标的外接矩形（向外扩 margin 像素）内搜索，
+// 缓冲区按区域大小分配（只增不减，查询之间复用）。路径贴到区域边界时说明区域可能太小，
+// 把 margin 加倍重新搜索，直到路径不再贴边或区域已覆盖整幅图像
+class RegionSearch {
+    private final PixelGraph graph;
+    private SearchWorkspace workspace;
+    private int x0, y0, regionWidth, regionHeight; // 上一次搜索的区域
+    private int settledCount;  // 评估：上一次查询（含所有放大重试）出堆的像素数
+    private int widenCount;    // 评估：上一次查询放大区域的次数
+
+    RegionSearch(PixelGraph graph) {
+        this.graph = graph;
+    }
+
+    int[] shortestPath(int source, int target, int margin) {
+        int sx = graph.x(source), sy = graph.y(source);
+        int tx = graph.x(target), ty = graph.y(target);
+        settledCount = 0;
+        widenCount = 0;
+        margin = Math.max(margin, 1);
+
+        while (true) {
+            x0 = Math.max(0, Math.min(sx, tx) - margin);
+            y0 = Math.max(0, Math.min(sy, ty) - margin);
+            int x1 = Math.min(graph.width - 1, Math.max(sx, tx) + margin);
+            int y1 = Math.min(graph.height - 1, Math.max(sy, ty) + margin);
+            regionWidth = x1 - x0 + 1;
+            regionHeight = y1 - y0 + 1;
+            boolean wholeImage = regionWidth == graph.width && regionHeight == graph.height;
+
+            int[] path = search(source, target);
+            if (wholeImage || !touchesInnerBorder(path)) {
+                return path;
+            }
+            margin *= 2;
+            widenCount++;
+        }
+    }
+
+    int getSettledCount() {
+        return settledCount;
+    }
+
+    int getWidenCount() {
+        return widenCount;
+    }
+
+    // 评估：上一次搜索的区域像素数
+    long getRegionArea() {
+        return (long) regionWidth * regionHeight;
+    }
+
+    long memoryBytes() {
+        return workspace == null ? 0 : workspace.memoryBytes();
+    }
+
+    private int[] search(int source, int target) {
+        int area = regionWidth * regionHeight;
+        if (workspace == null || workspace.dist.length < area) {
+            workspace = new SearchWorkspace(area);
+        }
+        SearchWorkspace ws = workspace;
+        IndexedMinHeap heap = ws.heap;
+        float[] edges = graph.edgeBuffer();
+        float[] dist = ws.dist;
+        int[] pred = ws.pred;
+        int width = graph.width;
+        int rw = regionWidth, rh = regionHeight;
+        int localSource = toLocal(source);
+        int localTarget = toLocal(target);
+
+        ws.reset();
+        ws.reach(localSource, 0f, -1);
+        heap.insert(localSource, 0f);
+
+        while (!heap.isEmpty()) {
+            float d = heap.minKey();
+            int u = heap.delMin();
+            settledCount++;
+            if (u == localTarget) {
+                int[] path = ws.pathTo(localSource, localTarget);
+                for (int i = 0; i < path.length; i++) {
+                    path[i] = toGlobal(path[i]);
+                }
+                return path;
+            }
+
+            int lx = u % rw;
+            int ly = u / rw;
+            int base = graph.edgeCosts((ly + y0) * width + lx + x0, edges);
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                int nx = lx + PixelGraph.DX[i];
+                int ny = ly + PixelGraph.DY[i];
+                if (nx < 0 || nx >= rw || ny < 0 || ny >= rh) continue; // 区域之外
+                int v = ny * rw + nx;
+                float newDist = d + edges[base + i];
+                if (!ws.reached(v)) {
+                    ws.reach(v, newDist, u);
+                    heap.insert(v, newDist);
+                } else if (newDist < dist[v]) {
+                    dist[v] = newDist;
+                    pred[v] = u;
+                    heap.decreaseKey(v, newDist);
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    // 路径上是否有像素落在区域边界上（与图像边界重合的那几条边不算）
+    private boolean touchesInnerBorder(int[] path) {
+        int x1 = x0 + regionWidth - 1;
+        int y1 = y0 + regionHeight - 1;
+        for (int p : path) {
+            int x = graph.x(p), y = graph.y(p);
+            if ((x == x0 && x0 > 0) || (x == x1 && x1 < graph.width - 1)
+                    || (y == y0 && y0 > 0) || (y == y1 && y1 < graph.height - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int toLocal(int p) {
+        return (graph.y(p) - y0) * regionWidth + graph.x(p) - x0;
+    }
+
+    private int toGlobal(int local) {
+        return (local / regionWidth + y0) * graph.width + local % regionWidth + x0;
+    }
+}
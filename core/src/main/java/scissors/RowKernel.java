@@ -0,0 +1,26 @@
+package scissors;
+
+// 融合流水线的逐行 3x3 卷积核：高斯模糊一行，以及 Scharr 梯度 + 幅值一行。
+// 有两种实现：标量版本 ScalarRowKernel，以及基于 jdk.incubator.vector 的 VectorRowKernel（src/simd 下，单独编译）。
+// 两者结果逐位相同（全部是整数运算，幅值的 float sqrt 与 (float) Math.sqrt 舍入一致）
+interface RowKernel {
+    // out[1 .. width-2] = 3x3 高斯模糊（{1,2,1} ⊗ {1,2,1} / 16，四舍五入）；首尾两列不写
+    void blurRow(int[] above, int[] row, int[] below, int[] out, int width);
+
+    // 第 base / width 行的 Ix、Iy、G（第 1 .. width-2 列），p0..p2 为模糊后的上、中、下三行；返回该行 G 的最大值
+    float gradientRow(int[] p0, int[] p1, int[] p2, float[] Ix, float[] Iy, float[] G, int base, int width);
+
+    String name();
+
+    // 运行时带 --add-modules jdk.incubator.vector 且 VectorRowKernel 在 classpath 上时使用向量版本，否则退回标量版本
+    static RowKernel create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (RowKernel) Class.forName("scissors.VectorRowKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // 没有编译向量版本，使用标量版本
+            }
+        }
+        return new ScalarRowKernel();
+    }
+}
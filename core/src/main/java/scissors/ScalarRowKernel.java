@@ -0,0 +1,43 @@
+package scissors;
+
+// RowKernel 的标量实现，没有向量模块时使用，也是向量版本处理尾部的参照
+class ScalarRowKernel implements RowKernel {
+    @Override
+    public void blurRow(int[] above, int[] row, int[] below, int[] out, int width) {
+        blur(above, row, below, out, 1, width);
+    }
+
+    @Override
+    public float gradientRow(int[] p0, int[] p1, int[] p2, float[] Ix, float[] Iy, float[] G, int base, int width) {
+        return gradient(p0, p1, p2, Ix, Iy, G, base, 1, width);
+    }
+
+    @Override
+    public String name() {
+        return "Scalar";
+    }
+
+    // 从第 from 列开始的标量实现，向量版本也用它处理凑不满一组 lane 的尾部
+    static void blur(int[] above, int[] row, int[] below, int[] out, int from, int width) {
+        for (int x = from; x < width - 1; x++) {
+            int sum = above[x - 1] + 2 * above[x] + above[x + 1]
+                    + 2 * row[x - 1] + 4 * row[x] + 2 * row[x + 1]
+                    + below[x - 1] + 2 * below[x] + below[x + 1];
+            out[x] = (sum + 8) >> 4; // 与 Math.round(sum / 16f) 相同（sum 非负）
+        }
+    }
+
+    static float gradient(int[] p0, int[] p1, int[] p2, float[] Ix, float[] Iy, float[] G, int base, int from, int width) {
+        float max = 0;
+        for (int x = from; x < width - 1; x++) {
+            float ix = -3 * p0[x - 1] + 3 * p0[x + 1] - 10 * p1[x - 1] + 10 * p1[x + 1] - 3 * p2[x - 1] + 3 * p2[x + 1];
+            float iy = -3 * p0[x - 1] - 10 * p0[x] - 3 * p0[x + 1] + 3 * p2[x - 1] + 10 * p2[x] + 3 * p2[x + 1];
+            float g = (float) Math.sqrt(ix * ix + iy * iy);
+            Ix[base + x] = ix;
+            Iy[base + x] = iy;
+            G[base + x] = g;
+            if (g > max) max = g;
+        }
+        return max;
+    }
+}
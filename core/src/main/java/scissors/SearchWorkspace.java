@@ -0,0 +1,59 @@
+package scissors;
+
+import java.util.Arrays;
+
+// 每张图像一份的最短路缓冲区（距离、前驱、堆），查询之间复用。
+// 用代际戳 stamp 判断本次查询是否访问过某个像素，重置时不必把 dist 重新填成无穷大
+class SearchWorkspace {
+    final float[] dist;
+    final int[] pred;
+    final IndexedMinHeap heap;
+    private final int[] stamp;
+    private int generation = 1;
+
+    SearchWorkspace(int size) {
+        dist = new float[size];
+        pred = new int[size];
+        stamp = new int[size];
+        heap = new IndexedMinHeap(size);
+    }
+
+    void reset() {
+        heap.clear();
+        if (++generation == Integer.MAX_VALUE) { // 戳用尽时才整体清零一次
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    boolean reached(int v) {
+        return stamp[v] == generation;
+    }
+
+    float distTo(int v) {
+        return reached(v) ? dist[v] : Float.POSITIVE_INFINITY;
+    }
+
+    void reach(int v, float d, int p) {
+        stamp[v] = generation;
+        dist[v] = d;
+        pred[v] = p;
+    }
+
+    // 沿前驱回溯，返回 source -> target 的像素下标序列
+    int[] pathTo(int source, int target) {
+        int length = 1;
+        for (int v = target; v != source; v = pred[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target, i = length - 1; i >= 0; v = pred[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    long memoryBytes() {
+        return (long) dist.length * (Float.BYTES + Integer.BYTES + Integer.BYTES) + heap.memoryBytes();
+    }
+}
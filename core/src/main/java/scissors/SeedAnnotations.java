@@ -0,0 +1,107 @@
+package scissors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+
+// 批处理的种子标注，按顺序给出一个多边形的各个种子点（首尾自动闭合）：
+//   CSV  — 每行 "x,y"，允许一行表头，# 开头的行为注释
+//   JSON — [[x, y], ...]，或 {"seeds": [[x, y], ...]}，或 [{"x": .., "y": ..}, ...]
+// 返回 {x0, y0, x1, y1, ...}
+final class SeedAnnotations {
+    private SeedAnnotations() {
+    }
+
+    static int[] read(File file) throws IOException {
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        int[] seeds = file.getName().toLowerCase(Locale.ROOT).endsWith(".json") ? parseJson(text) : parseCsv(text);
+        if (seeds.length < 4) {
+            throw new IOException("At least two seeds are required: " + file);
+        }
+        return seeds;
+    }
+
+    private static int[] parseCsv(String text) throws IOException {
+        int[] seeds = new int[16];
+        int n = 0;
+        boolean first = true;
+        for (String line : text.split("\\R")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("[,;\\s]+");
+            if (fields.length < 2) {
+                throw new IOException("Expected \"x,y\": " + line);
+            }
+            try {
+                int x = Integer.parseInt(fields[0].trim());
+                int y = Integer.parseInt(fields[1].trim());
+                if (n + 2 > seeds.length) seeds = Arrays.copyOf(seeds, seeds.length * 2);
+                seeds[n++] = x;
+                seeds[n++] = y;
+            } catch (NumberFormatException e) {
+                if (!first) {
+                    throw new IOException("Expected \"x,y\": " + line);
+                }
+                // 表头
+            }
+            first = false;
+        }
+        return Arrays.copyOf(seeds, n);
+    }
+
+    // 只支持上面列出的几种形式：数组中的数字按出现顺序两两组成 (x, y)，对象中的数字按键名 "x"、"y" 配对
+    private static int[] parseJson(String text) throws IOException {
+        int[] seeds = new int[16];
+        int n = 0;
+        String key = null;       // 最近读到的字符串（对象的键）
+        int x = 0, y = 0;
+        boolean hasX = false, hasY = false;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) throw new IOException("Unterminated string in JSON annotation");
+                key = text.substring(i + 1, end);
+                i = end + 1;
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                int end = i + 1;
+                while (end < text.length() && "0123456789.eE+-".indexOf(text.charAt(end)) >= 0) end++;
+                int value;
+                try {
+                    value = (int) Math.round(Double.parseDouble(text.substring(i, end)));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Bad number in JSON annotation: " + text.substring(i, end));
+                }
+                if (n + 2 > seeds.length) seeds = Arrays.copyOf(seeds, seeds.length * 2);
+                if ("x".equals(key) || "y".equals(key)) {
+                    if ("x".equals(key)) {
+                        x = value;
+                        hasX = true;
+                    } else {
+                        y = value;
+                        hasY = true;
+                    }
+                    if (hasX && hasY) {
+                        seeds[n++] = x;
+                        seeds[n++] = y;
+                        hasX = hasY = false;
+                    }
+                } else {
+                    seeds[n++] = value;
+                }
+                key = null;
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        if (n % 2 != 0 || hasX || hasY) {
+            throw new IOException("Unpaired coordinate in JSON annotation");
+        }
+        return Arrays.copyOf(seeds, n);
+    }
+}
@@ -0,0 +1,160 @@
+package scissors;
+
+// 以种子为根的最短路树（live-wire）：前驱、已出堆集合和边界堆在两次查询之间保留。
+// 目标已出堆时直接回溯，代价与路径长度成正比；否则从现有边界继续扩展到目标出堆为止，
+// 同一种子下每个像素只会被处理一次。
+// 给了 SeedTreeCache 时，展开完毕的树存入缓存，reset 到缓存中已有的种子时直接恢复前驱，不再搜索
+class SeedTree {
+    private final PixelGraph graph;
+    private final SearchWorkspace workspace;
+    private final SeedTreeCache cache; // null 表示不缓存
+    private int seed = -1;
+    private boolean cached;   // 当前树已在缓存中（从缓存恢复或已存入）
+    private int settledCount; // 评估：自 reset 以来出堆的像素数，从缓存恢复时为 0
+
+    SeedTree(PixelGraph graph) {
+        this(graph, null);
+    }
+
+    SeedTree(PixelGraph graph, SeedTreeCache cache) {
+        this.graph = graph;
+        this.workspace = new SearchWorkspace(graph.size());
+        this.cache = cache;
+    }
+
+    int getSeed() {
+        return seed;
+    }
+
+    // 丢弃当前的树，下一次查询必须重新 reset
+    void clear() {
+        seed = -1;
+    }
+
+    void reset(int seed) {
+        this.seed = seed;
+        settledCount = 0;
+        workspace.reset();
+        byte[] parent = cache != null ? cache.get(graph.version, seed) : null;
+        if (parent != null) {
+            restore(parent);
+            return;
+        }
+        cached = false;
+        workspace.reach(seed, 0f, -1);
+        workspace.heap.insert(seed, 0f);
+    }
+
+    // 恢复缓存中的整棵树：只恢复前驱，堆为空即展开完毕，之后的查询都只回溯（距离不再用到，置为 0）
+    private void restore(byte[] parent) {
+        SearchWorkspace ws = workspace;
+        int[] offset = graph.offset;
+        for (int v = 0; v < parent.length; v++) {
+            byte dir = parent[v];
+            if (dir == SeedTreeCache.UNREACHED) continue;
+            ws.reach(v, 0f, dir == SeedTreeCache.ROOT ? -1 : v + offset[dir]);
+        }
+        cached = true;
+    }
+
+    // 展开完毕的树存入缓存（每棵树只存一次）
+    private void storeIfComplete() {
+        if (cache != null && !cached && isComplete()) {
+            cache.put(graph.version, seed, parentDirections());
+            cached = true;
+        }
+    }
+
+    // 每个像素走向前驱的方向（DX/DY 的编号），种子为 ROOT，未到达为 UNREACHED
+    private byte[] parentDirections() {
+        SearchWorkspace ws = workspace;
+        int width = graph.width;
+        byte[] parent = new byte[graph.size()];
+        for (int v = 0; v < parent.length; v++) {
+            if (!ws.reached(v)) {
+                parent[v] = SeedTreeCache.UNREACHED;
+            } else if (v == seed) {
+                parent[v] = SeedTreeCache.ROOT;
+            } else if (width < 3) {
+                parent[v] = (byte) graph.direction(v, ws.pred[v]);
+            } else {
+                // 宽度不小于 3 时下标差 d = dy * width + dx 可以直接拆开，不必做除法
+                int d = ws.pred[v] - v;
+                int dy = d > 1 ? 1 : d < -1 ? -1 : 0;
+                int dx = d - dy * width;
+                int code = (dx + 1) * 3 + dy + 1; // 跳过 (0, 0) 后即为 DX/DY 中的方向编号
+                parent[v] = (byte) (code < 4 ? code : code - 1);
+            }
+        }
+        return parent;
+    }
+
+    boolean isSettled(int v) {
+        return workspace.reached(v) && !workspace.heap.contains(v);
+    }
+
+    // 整棵树是否已经展开完毕
+    boolean isComplete() {
+        return seed >= 0 && workspace.heap.isEmpty();
+    }
+
+    // 扩展直到 target 出堆，target 为 -1 时展开整棵树；返回 target 是否可达
+    boolean expandUntil(int target) {
+        return expand(target, Integer.MAX_VALUE);
+    }
+
+    // 最多再出堆 maxSettles 个像素，供后台线程分批扩展；返回 target 是否已出堆
+    boolean expand(int target, int maxSettles) {
+        SearchWorkspace ws = workspace;
+        IndexedMinHeap heap = ws.heap;
+        float[] edges = graph.edgeBuffer();
+        int[] offset = graph.offset;
+        float[] dist = ws.dist;
+        int[] pred = ws.pred;
+
+        if (target >= 0 && isSettled(target)) return true;
+        for (int n = 0; n < maxSettles && !heap.isEmpty(); n++) {
+            float d = heap.minKey();
+            int u = heap.delMin();
+            settledCount++;
+
+            int base = graph.edgeCosts(u, edges);
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                float cost = edges[base + i];
+                if (cost == Float.POSITIVE_INFINITY) continue; // 越界方向
+                int v = u + offset[i];
+                float newDist = d + cost;
+                if (!ws.reached(v)) {
+                    ws.reach(v, newDist, u);
+                    heap.insert(v, newDist);
+                } else if (newDist < dist[v]) { // 已出堆的像素不会满足该条件
+                    dist[v] = newDist;
+                    pred[v] = u;
+                    heap.decreaseKey(v, newDist);
+                }
+            }
+            if (u == target) {
+                storeIfComplete();
+                return true;
+            }
+        }
+        storeIfComplete();
+        return target >= 0 && isSettled(target);
+    }
+
+    // 回溯 seed -> target 的路径，target 尚未出堆时返回空数组（不会触发扩展）
+    int[] pathTo(int target) {
+        if (seed < 0 || !isSettled(target)) {
+            return new int[0];
+        }
+        return workspace.pathTo(seed, target);
+    }
+
+    int getSettledCount() {
+        return settledCount;
+    }
+
+    long memoryBytes() {
+        return workspace.memoryBytes();
+    }
+}
@@ -0,0 +1,104 @@
+package scissors;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 已展开完毕的种子树的 LRU 缓存，用于撤销到前一个种子、重新点回之前的种子等情况：命中时把前驱恢复到 SeedTree 中，
+// 不必重新搜索。每棵树只存紧凑的前驱方向数组（每像素 1 字节：走向前驱的方向 0..7，根为 ROOT，
+// 不可达为 UNREACHED），是 SearchWorkspace 的 1/12 左右。
+// key 为代价图版本（PixelGraph.version）和种子像素，换了图像或代价图后旧的树不会再命中，按 LRU 自然淘汰。
+// 只缓存展开完毕的树：只有前驱没有距离和边界，未展开完的树无法继续展开
+class SeedTreeCache {
+    static final byte ROOT = 8;
+    static final byte UNREACHED = -1;
+
+    private final long budgetBytes;
+    private final LinkedHashMap<Long, byte[]> trees = new LinkedHashMap<>(16, 0.75f, true); // 访问顺序即 LRU 顺序
+    private long residentBytes;
+
+    // 评估计数
+    private long hits, misses, stores, evictions;
+
+    // budgetBytes 为所有缓存的树占用的上限，为 0 时不缓存
+    SeedTreeCache(long budgetBytes) {
+        this.budgetBytes = Math.max(0, budgetBytes);
+    }
+
+    // 系统属性 scissors.seedTreeCacheMb 指定的预算（MB），默认 64 MB
+    static SeedTreeCache fromSystemProperty() {
+        return new SeedTreeCache(Long.getLong("scissors.seedTreeCacheMb", 64) << 20);
+    }
+
+    // 版本为 version 的图上以 seed 为根的树，未缓存时返回 null
+    synchronized byte[] get(long version, int seed) {
+        byte[] parent = trees.get(key(version, seed));
+        if (parent == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return parent;
+    }
+
+    synchronized boolean contains(long version, int seed) {
+        return trees.containsKey(key(version, seed));
+    }
+
+    // 放入一棵树，超出预算时从最久未用的开始淘汰；单棵树就超过预算时不缓存
+    synchronized void put(long version, int seed, byte[] parent) {
+        if (parent.length > budgetBytes) {
+            return;
+        }
+        byte[] old = trees.put(key(version, seed), parent);
+        residentBytes += parent.length - (old == null ? 0 : old.length);
+        stores++;
+        Iterator<Map.Entry<Long, byte[]>> eldest = trees.entrySet().iterator();
+        while (residentBytes > budgetBytes && eldest.hasNext()) {
+            residentBytes -= eldest.next().getValue().length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    synchronized void clear() {
+        trees.clear();
+        residentBytes = 0;
+    }
+
+    private static Long key(long version, int seed) {
+        return version << 32 | (seed & 0xffffffffL);
+    }
+
+    long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    synchronized int size() {
+        return trees.size();
+    }
+
+    synchronized void resetCounters() {
+        hits = misses = stores = evictions = 0;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getStores() {
+        return stores;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,223 @@
+package scissors;
+
+// 像素图上的点到点最短路引擎：缓冲区放在 SearchWorkspace 中反复使用，
+// 查询过程中除结果数组外不分配对象。Dijkstra 在起点与上一次相同时从上次的边界继续扩展
+class ShortestPathEngine {
+    private final PixelGraph graph;
+    private final SeedTree tree;
+    private SearchWorkspace forward, backward; // A* / 双向搜索用，第一次使用时分配
+    private DialSearch dial;                   // 量化代价和桶队列，第一次使用时构建
+    private int settledCount; // 评估：上一次查询出堆的像素数
+
+    ShortestPathEngine(PixelGraph graph) {
+        this.graph = graph;
+        this.tree = new SeedTree(graph);
+    }
+
+    int[] shortestPath(int source, int target, PathStrategy strategy) {
+        switch (strategy) {
+            case ASTAR:
+                return aStar(source, target);
+            case BIDIRECTIONAL:
+                return bidirectional(source, target);
+            case DIAL:
+                return dial(source, target);
+            default:
+                return dijkstra(source, target);
+        }
+    }
+
+    int[] dijkstra(int source, int target) {
+        if (tree.getSeed() != source) {
+            tree.reset(source);
+        }
+        tree.expandUntil(target);
+        settledCount = tree.getSettledCount();
+        return tree.pathTo(target);
+    }
+
+    // A*：h(v) = Chebyshev(v, target) × minStepCost。每一步至多让 Chebyshev 距离减 1 且代价不小于 minStepCost，
+    // 所以 h 是可采纳且一致的，结果与 Dijkstra 一样最优
+    int[] aStar(int source, int target) {
+        if (forward == null) {
+            forward = new SearchWorkspace(graph.size());
+        }
+        SearchWorkspace ws = forward;
+        IndexedMinHeap heap = ws.heap;
+        float[] edges = graph.edgeBuffer();
+        int[] offset = graph.offset;
+        float[] dist = ws.dist;
+        int[] pred = ws.pred;
+        int width = graph.width;
+        int targetX = target % width;
+        int targetY = target / width;
+        float minCost = graph.minStepCost;
+        int settled = 0;
+
+        ws.reset();
+        ws.reach(source, 0f, -1);
+        heap.insert(source, minCost * Math.max(Math.abs(source % width - targetX), Math.abs(source / width - targetY)));
+
+        while (!heap.isEmpty()) {
+            int u = heap.delMin();
+            settled++;
+            if (u == target) {
+                settledCount = settled;
+                return ws.pathTo(source, target);
+            }
+
+            float d = dist[u];
+            int base = graph.edgeCosts(u, edges);
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                float cost = edges[base + i];
+                if (cost == Float.POSITIVE_INFINITY) continue; // 越界方向
+                int v = u + offset[i];
+                float newDist = d + cost;
+                if (!ws.reached(v) || newDist < dist[v]) {
+                    ws.reach(v, newDist, u);
+                    float h = minCost * Math.max(Math.abs(v % width - targetX), Math.abs(v / width - targetY));
+                    if (heap.contains(v)) {
+                        heap.decreaseKey(v, newDist + h);
+                    } else {
+                        heap.insert(v, newDist + h); // 浮点误差导致已关闭的像素变短时重新打开
+                    }
+                }
+            }
+        }
+        settledCount = settled;
+        return new int[0];
+    }
+
+    // 双向 Dijkstra：正向沿出边从 source 展开，反向沿入边从 target 展开（边权取决于终点，图不对称）。
+    // 每次展开堆顶较小的一侧，当两侧堆顶之和不小于已知最短 s-t 路径时停止
+    int[] bidirectional(int source, int target) {
+        if (forward == null) {
+            forward = new SearchWorkspace(graph.size());
+        }
+        if (backward == null) {
+            backward = new SearchWorkspace(graph.size());
+        }
+        if (source == target) {
+            settledCount = 1;
+            return new int[] { source };
+        }
+        SearchWorkspace fw = forward, bw = backward;
+        IndexedMinHeap fHeap = fw.heap, bHeap = bw.heap;
+        float[] edges = graph.edgeBuffer();
+        int[] offset = graph.offset;
+        float best = Float.POSITIVE_INFINITY;
+        int meetFrom = -1, meetTo = -1; // 最优路径上连接两侧的那条边 meetFrom -> meetTo
+        int settled = 0;
+
+        fw.reset();
+        bw.reset();
+        fw.reach(source, 0f, -1);
+        fHeap.insert(source, 0f);
+        bw.reach(target, 0f, -1);
+        bHeap.insert(target, 0f);
+
+        while (!fHeap.isEmpty() && !bHeap.isEmpty()) {
+            float fTop = fHeap.minKey();
+            float bTop = bHeap.minKey();
+            if (fTop + bTop >= best) break;
+            settled++;
+
+            if (fTop <= bTop) {
+                int u = fHeap.delMin();
+                int base = graph.edgeCosts(u, edges);
+                for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                    float cost = edges[base + i];
+                    if (cost == Float.POSITIVE_INFINITY) continue;
+                    int v = u + offset[i];
+                    float newDist = fTop + cost;
+                    if (!fw.reached(v)) {
+                        fw.reach(v, newDist, u);
+                        fHeap.insert(v, newDist);
+                    } else if (newDist < fw.dist[v]) {
+                        fw.dist[v] = newDist;
+                        fw.pred[v] = u;
+                        fHeap.decreaseKey(v, newDist);
+                    }
+                    if (bw.reached(v) && newDist + bw.dist[v] < best) {
+                        best = newDist + bw.dist[v];
+                        meetFrom = u;
+                        meetTo = v;
+                    }
+                }
+            } else {
+                int v = bHeap.delMin();
+                int base = graph.edgeCosts(v, edges);
+                for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                    // 入边 u -> v：u 在 v 的反方向上，反方向越界即 u 不存在
+                    if (edges[base + PixelGraph.opposite(i)] == Float.POSITIVE_INFINITY) continue;
+                    int u = v - offset[i];
+                    float newDist = bTop + graph.cost(u, i);
+                    if (!bw.reached(u)) {
+                        bw.reach(u, newDist, v);
+                        bHeap.insert(u, newDist);
+                    } else if (newDist < bw.dist[u]) {
+                        bw.dist[u] = newDist;
+                        bw.pred[u] = v;
+                        bHeap.decreaseKey(u, newDist);
+                    }
+                    if (fw.reached(u) && fw.dist[u] + newDist < best) {
+                        best = fw.dist[u] + newDist;
+                        meetFrom = u;
+                        meetTo = v;
+                    }
+                }
+            }
+        }
+        settledCount = settled;
+        if (meetFrom < 0) {
+            return new int[0];
+        }
+
+        // 正向前驱：source..meetFrom；反向前驱（指向 target 一侧）：meetTo..target
+        int forwardLength = 0;
+        for (int v = meetFrom; v != -1; v = fw.pred[v]) {
+            forwardLength++;
+        }
+        int backwardLength = 0;
+        for (int v = meetTo; v != -1; v = bw.pred[v]) {
+            backwardLength++;
+        }
+        int[] path = new int[forwardLength + backwardLength];
+        int i = forwardLength - 1;
+        for (int v = meetFrom; v != -1; v = fw.pred[v]) {
+            path[i--] = v;
+        }
+        i = forwardLength;
+        for (int v = meetTo; v != -1; v = bw.pred[v]) {
+            path[i++] = v;
+        }
+        return path;
+    }
+
+    int[] dial(int source, int target) {
+        if (dial == null) {
+            dial = new DialSearch(graph);
+        }
+        int[] path = dial.shortestPath(source, target);
+        settledCount = dial.getSettledCount();
+        return path;
+    }
+
+    // 评估：强制下一次 Dijkstra 查询从头开始
+    void clear() {
+        tree.clear();
+    }
+
+    // 评估：上一次查询出堆的像素数（Dijkstra 为当前起点累计的数目）
+    int getSettledCount() {
+        return settledCount;
+    }
+
+    long memoryBytes() {
+        long bytes = tree.memoryBytes();
+        if (forward != null) bytes += forward.memoryBytes();
+        if (backward != null) bytes += backward.memoryBytes();
+        if (dial != null) bytes += dial.memoryBytes();
+        return bytes;
+    }
+}
@@ -0,0 +1,71 @@
+package scissors;
+
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+// stb_image 解码：文件映射到内存后交给 stbi_load_from_memory，解码结果在堆外的 RGB ByteBuffer 中，
+// 一次遍历同时写出显示用的 3BYTE_BGR 图像和灰度平面，随后立即释放堆外内存。
+// 只通过 ImageLoader.create("stb") 反射创建，没有 LWJGL 时不会加载这个类。
+// JPEG 的 IDCT 实现与 ImageIO 不同，个别像素可能相差 1
+class StbImageLoader implements ImageLoader {
+    private static final int BAND_HEIGHT = 64;
+
+    // 先调用一次本地方法：本平台没有 natives 时在这里抛出 LinkageError（lib/ 中带有 windows 和 linux 的 natives jar）
+    StbImageLoader() {
+        STBImage.stbi_failure_reason();
+    }
+
+    @Override
+    public LoadedImage load(File file) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer rgb;
+        int width, height;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel();
+             MemoryStack stack = MemoryStack.stackPush()) {
+            ByteBuffer encoded = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IntBuffer w = stack.mallocInt(1), h = stack.mallocInt(1), comp = stack.mallocInt(1);
+            rgb = STBImage.stbi_load_from_memory(encoded, w, h, comp, 3);
+            if (rgb == null) {
+                throw new IOException("stb_image failed to decode " + file + ": " + STBImage.stbi_failure_reason());
+            }
+            width = w.get(0);
+            height = h.get(0);
+        }
+
+        try {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            byte[] bgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+            int[] gray = new int[width * height];
+            ByteBuffer src = rgb;
+            ProcessingEngine.shared().forEach((height + BAND_HEIGHT - 1) / BAND_HEIGHT, band -> {
+                int end = Math.min(height, (band + 1) * BAND_HEIGHT) * width;
+                for (int i = band * BAND_HEIGHT * width; i < end; i++) {
+                    int p = i * 3;
+                    int r = src.get(p) & 0xFF, g = src.get(p + 1) & 0xFF, b = src.get(p + 2) & 0xFF;
+                    bgr[p] = (byte) b;
+                    bgr[p + 1] = (byte) g;
+                    bgr[p + 2] = (byte) r;
+                    gray[i] = LoadedImage.toGray(r, g, b);
+                }
+            });
+            return new LoadedImage(image, gray, name(), System.nanoTime() - start);
+        } finally {
+            STBImage.stbi_image_free(rgb);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "stb";
+    }
+}
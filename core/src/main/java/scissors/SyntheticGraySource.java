@@ -0,0 +1,53 @@
+package scissors;
+
+// 合成的大图：按 128 像素的格子划分，每格一个实心圆或矩形（位置、大小、灰度由格子坐标的哈希决定），
+// 背景是水平渐变，再叠加 ±4 的噪声。任意区域都可以直接算出来，评估 100k x 100k 的图像时不占磁盘
+class SyntheticGraySource implements GraySource {
+    private static final int CELL = 128;
+    private final int width, height;
+
+    SyntheticGraySource(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void read(int x0, int y0, int w, int h, int[] out) {
+        for (int y = 0; y < h; y++) {
+            int gy = y0 + y;
+            for (int x = 0; x < w; x++) {
+                out[y * w + x] = value(x0 + x, gy);
+            }
+        }
+    }
+
+    private int value(int x, int y) {
+        int cellX = x / CELL, cellY = y / CELL;
+        long cell = hash(cellX * 0x9E3779B97F4A7C15L + cellY);
+        int radius = 16 + (int) (cell & 31);
+        int cx = cellX * CELL + CELL / 2 + (int) ((cell >>> 8) & 31) - 16;
+        int cy = cellY * CELL + CELL / 2 + (int) ((cell >>> 16) & 31) - 16;
+        int dx = x - cx, dy = y - cy;
+        boolean circle = ((cell >>> 24) & 1) == 0;
+        boolean inside = circle ? dx * dx + dy * dy <= radius * radius : Math.abs(dx) <= radius && Math.abs(dy) <= radius;
+        int v = inside ? (int) ((cell >>> 32) & 255) : (int) (64 + 128L * x / width);
+        int noise = (int) (hash(((long) y << 32) | x) & 7) - 4;
+        return Math.max(0, Math.min(255, v + noise));
+    }
+
+    private static long hash(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,269 @@
+package scissors;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 分块的代价平面，用于整幅放不进内存的图像（例如 100k x 100k 的病理切片）。
+// 图像按 tileSize x tileSize 分块，每块的梯度幅值 G 在第一次被路径搜索或光标吸附访问时才计算：
+// 读入分块外扩 HALO 像素的原始灰度，按整图引擎相同的规则模糊、求 Scharr 梯度，结果与 computeGradients() 逐位相同。
+// 边权只取决于终点的 G（PixelGraph.baseCost），所以每块只存一个 G 平面，8 个方向的代价在搜索时现算。
+// 算好的分块写入内存映射的后备文件（每块固定位置，稀疏文件，只有写过的块占磁盘），
+// 堆内只按 LRU 保留预算内的热块；被淘汰的块再次访问时从映射文件读回，不再重新计算
+class TiledCostMap implements Closeable {
+    static final int HALO = 2;                    // 模糊和 Scharr 两个 3x3 核串联，G 需要外扩 2 像素的原始灰度
+    private static final long SEGMENT_BYTES = 1L << 30; // 每个映射段 1 GB（MappedByteBuffer 上限 2 GB）
+
+    private final GraySource source;
+    private final int width, height;
+    private final int tileShift, tileSize, tilesX, tilesY;
+    private final int tileBytes;
+    private final int tilesPerSegment;
+    private final long budgetBytes;
+    private final RowKernel kernel = RowKernel.create();
+    private final LinkedHashMap<Integer, float[]> resident; // 访问顺序即 LRU 顺序
+    private final BitSet stored = new BitSet();              // 已经写入后备文件的分块
+    private final File backingFile;
+    private final boolean deleteOnClose;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+
+    // 评估计数
+    private long hits, misses, computed, reloaded, evicted;
+    private long computeNanos, reloadNanos;
+
+    // source 归 TiledCostMap 所有，close() 时一并关闭；tileSize 必须是 2 的幂；budgetBytes 是堆内热块的上限（至少保留 4 块）；backingFile 为 null 时使用临时文件，关闭时删除
+    TiledCostMap(GraySource source, int tileSize, long budgetBytes, File backingFile) throws IOException {
+        if (tileSize < 16 || Integer.bitCount(tileSize) != 1) {
+            throw new IllegalArgumentException("Tile size must be a power of two >= 16: " + tileSize);
+        }
+        this.source = source;
+        this.width = source.width();
+        this.height = source.height();
+        this.tileSize = tileSize;
+        this.tileShift = Integer.numberOfTrailingZeros(tileSize);
+        this.tilesX = (width + tileSize - 1) >> tileShift;
+        this.tilesY = (height + tileSize - 1) >> tileShift;
+        this.tileBytes = tileSize * tileSize * Float.BYTES;
+        this.tilesPerSegment = (int) (SEGMENT_BYTES / tileBytes);
+        this.budgetBytes = Math.max(budgetBytes, 4L * tileBytes);
+        this.resident = new LinkedHashMap<Integer, float[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+                if ((long) size() * tileBytes > TiledCostMap.this.budgetBytes) {
+                    evicted++;
+                    return true; // 已经在后备文件里，直接丢弃
+                }
+                return false;
+            }
+        };
+
+        this.deleteOnClose = backingFile == null;
+        this.backingFile = backingFile != null ? backingFile : File.createTempFile("scissors-tiles", ".bin");
+        RandomAccessFile raf = new RandomAccessFile(this.backingFile, "rw");
+        long tileCount = (long) tilesX * tilesY;
+        raf.setLength(tileCount * tileBytes); // 稀疏文件：只分配长度，不写数据
+        this.channel = raf.getChannel();
+        this.segments = new MappedByteBuffer[(int) ((tileCount + tilesPerSegment - 1) / tilesPerSegment)];
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getTileSize() {
+        return tileSize;
+    }
+
+    int tileId(int x, int y) {
+        return (y >> tileShift) * tilesX + (x >> tileShift);
+    }
+
+    // 分块内的下标
+    int local(int x, int y) {
+        return ((y & (tileSize - 1)) << tileShift) | (x & (tileSize - 1));
+    }
+
+    float gradient(int x, int y) {
+        return tile(tileId(x, y))[local(x, y)];
+    }
+
+    // 分块 id 的 G 平面（tileSize x tileSize，图像右侧和下侧的不完整分块多出的部分为 0）。
+    // 返回的数组被淘汰后不会再被修改，调用方可以继续读，但不应长期持有
+    synchronized float[] tile(int id) {
+        float[] tile = resident.get(id);
+        if (tile != null) {
+            hits++;
+            return tile;
+        }
+        misses++;
+        tile = new float[tileSize * tileSize];
+        long start = System.nanoTime();
+        if (stored.get(id)) {
+            slot(id).asFloatBuffer().get(tile);
+            reloaded++;
+            reloadNanos += System.nanoTime() - start;
+        } else {
+            computeTile(id % tilesX, id / tilesX, tile);
+            slot(id).asFloatBuffer().put(tile);
+            stored.set(id);
+            computed++;
+            computeNanos += System.nanoTime() - start;
+        }
+        resident.put(id, tile);
+        return tile;
+    }
+
+    // 未优化版本与整图引擎 findStrongestEdgeBruteForce 相同：窗口内按行扫描，取第一个 G 最大的像素
+    int[] findStrongest(int x, int y, int windowSize) {
+        int half = windowSize / 2;
+        int bestX = x, bestY = y;
+        float maxGrad = -1f;
+        for (int ny = Math.max(0, y - half); ny <= Math.min(height - 1, y + half); ny++) {
+            for (int nx = Math.max(0, x - half); nx <= Math.min(width - 1, x + half); nx++) {
+                float g = gradient(nx, ny);
+                if (g > maxGrad) {
+                    maxGrad = g;
+                    bestX = nx;
+                    bestY = ny;
+                }
+            }
+        }
+        return new int[] { bestX, bestY };
+    }
+
+    // 计算第 (tx, ty) 块的 G。原始灰度窗口为分块外扩 HALO（在图像内截断），在窗口的局部坐标里逐行模糊、求梯度：
+    // 图像的首末行和首末列不模糊，G 在图像边界上为 0，与 computeGradients() 的规则一致
+    private void computeTile(int tx, int ty, float[] out) {
+        int x0 = tx << tileShift, y0 = ty << tileShift;
+        int x1 = Math.min(width, x0 + tileSize), y1 = Math.min(height, y0 + tileSize);
+        if (width < 3 || height < 3) return;
+        int rx0 = Math.max(0, x0 - HALO), rx1 = Math.min(width, x1 + HALO);
+        int ry0 = Math.max(0, y0 - HALO), ry1 = Math.min(height, y1 + HALO);
+        int rw = rx1 - rx0, rh = ry1 - ry0;
+
+        int[] raw = new int[rw * rh];
+        source.read(rx0, ry0, rw, rh, raw);
+        int[][] rows = new int[rh][];
+        for (int r = 0; r < rh; r++) {
+            rows[r] = new int[rw];
+            System.arraycopy(raw, r * rw, rows[r], 0, rw);
+        }
+
+        // 模糊第 max(0, y0-1) .. min(height-1, y1) 行（局部行号 r），其余行用不到
+        int[][] blurred = new int[rh][];
+        int by0 = Math.max(0, y0 - 1) - ry0, by1 = Math.min(height - 1, y1) - ry0;
+        for (int r = by0; r <= by1; r++) {
+            int y = ry0 + r;
+            int[] line = new int[rw];
+            if (y == 0 || y == height - 1) {
+                System.arraycopy(rows[r], 0, line, 0, rw); // 边界行不模糊
+            } else {
+                line[0] = rows[r][0];
+                line[rw - 1] = rows[r][rw - 1];
+                kernel.blurRow(rows[r - 1], rows[r], rows[r + 1], line, rw);
+            }
+            blurred[r] = line;
+        }
+
+        // 梯度行 y 在 [max(1, y0), min(height-1, y1))，列 x 在 [max(1, x0), min(width-1, x1))
+        float[] ix = new float[rw], iy = new float[rw], g = new float[rw];
+        int gx0 = Math.max(1, x0), gx1 = Math.min(width - 1, x1);
+        for (int y = Math.max(1, y0); y < Math.min(height - 1, y1); y++) {
+            int r = y - ry0;
+            kernel.gradientRow(blurred[r - 1], blurred[r], blurred[r + 1], ix, iy, g, 0, rw);
+            int base = (y - y0) << tileShift;
+            for (int x = gx0; x < gx1; x++) {
+                out[base + x - x0] = g[x - rx0];
+            }
+        }
+    }
+
+    // 分块 id 在后备文件中的位置（本地字节序），映射段在第一次访问时建立
+    private ByteBuffer slot(int id) {
+        int segment = id / tilesPerSegment;
+        if (segments[segment] == null) {
+            long start = (long) segment * tilesPerSegment * tileBytes;
+            long length = Math.min(SEGMENT_BYTES, (long) tilesX * tilesY * tileBytes - start);
+            try {
+                segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE, start, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int offset = (id % tilesPerSegment) * tileBytes;
+        ByteBuffer view = segments[segment].duplicate();
+        view.position(offset).limit(offset + tileBytes);
+        return view.slice().order(ByteOrder.nativeOrder());
+    }
+
+    synchronized long residentBytes() {
+        return (long) resident.size() * tileBytes;
+    }
+
+    // 已写入后备文件的数据量（稀疏文件实际占用的磁盘）
+    synchronized long storedBytes() {
+        return (long) stored.cardinality() * tileBytes;
+    }
+
+    synchronized void resetCounters() {
+        hits = misses = computed = reloaded = evicted = 0;
+        computeNanos = reloadNanos = 0;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getComputed() {
+        return computed;
+    }
+
+    synchronized long getReloaded() {
+        return reloaded;
+    }
+
+    synchronized long getEvicted() {
+        return evicted;
+    }
+
+    synchronized long getComputeNanos() {
+        return computeNanos;
+    }
+
+    synchronized long getReloadNanos() {
+        return reloadNanos;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        resident.clear();
+        Arrays.fill(segments, null); // 删除前先丢掉映射段，Windows 上文件仍被映射时删不掉
+        try {
+            channel.close();
+        } finally {
+            source.close();
+            if (deleteOnClose && !backingFile.delete()) {
+                backingFile.deleteOnExit(); // 映射段尚未被回收时留到退出再删
+            }
+        }
+    }
+}
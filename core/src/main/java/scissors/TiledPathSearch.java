@@ -0,0 +1,168 @@
+package scissors;
+
+// 分块代价平面上的限定区域 Dijkstra，做法与 RegionSearch 相同：只在种子与目标的外接矩形（外扩 margin）内搜索，
+// 路径贴到区域边界时把 margin 加倍重试。区别是边权不从 PixelGraph 读，而是按需向 TiledCostMap 取终点的 G 现算，
+// 所以只有搜索真正走到的分块才会被计算或读回。缓冲区只按区域大小分配，与整幅图像的尺寸无关；
+// 区域超过 maxArea 像素时不再放大（返回上一次的结果，第一次就超限时报错），内存占用因此有上限。
+// 像素下标用 long（y * width + x），100k x 100k 的图像超出 int 范围
+class TiledPathSearch {
+    private static final float DIAGONAL = (float) Math.sqrt(2);
+
+    private final TiledCostMap map;
+    private final long maxArea;
+    private SearchWorkspace workspace;
+    private int x0, y0, regionWidth, regionHeight; // 上一次搜索的区域
+    private int settledCount;  // 评估：上一次查询（含所有放大重试）出堆的像素数
+    private int widenCount;    // 评估：上一次查询放大区域的次数
+
+    // 最近访问的分块，相邻像素几乎总在同一块里，省去大部分 LRU 查找
+    private int lastTileId = -1;
+    private float[] lastTile;
+
+    TiledPathSearch(TiledCostMap map, long maxArea) {
+        this.map = map;
+        this.maxArea = Math.min(maxArea, Integer.MAX_VALUE - 8);
+    }
+
+    long[] shortestPath(int sx, int sy, int tx, int ty, int margin) {
+        int width = map.getWidth(), height = map.getHeight();
+        settledCount = 0;
+        widenCount = 0;
+        margin = Math.max(margin, 1);
+        long[] path = null;
+
+        while (true) {
+            int rx0 = Math.max(0, Math.min(sx, tx) - margin);
+            int ry0 = Math.max(0, Math.min(sy, ty) - margin);
+            int rx1 = Math.min(width - 1, Math.max(sx, tx) + margin);
+            int ry1 = Math.min(height - 1, Math.max(sy, ty) + margin);
+            if ((long) (rx1 - rx0 + 1) * (ry1 - ry0 + 1) > maxArea) {
+                if (path == null) {
+                    throw new IllegalArgumentException("Search region exceeds " + maxArea + " pixels: ("
+                            + sx + ", " + sy + ") -> (" + tx + ", " + ty + ")");
+                }
+                return path;
+            }
+            x0 = rx0;
+            y0 = ry0;
+            regionWidth = rx1 - rx0 + 1;
+            regionHeight = ry1 - ry0 + 1;
+            boolean wholeImage = regionWidth == width && regionHeight == height;
+
+            path = search(sx, sy, tx, ty);
+            if (wholeImage || !touchesInnerBorder(path)) {
+                return path;
+            }
+            margin *= 2;
+            widenCount++;
+        }
+    }
+
+    int getSettledCount() {
+        return settledCount;
+    }
+
+    int getWidenCount() {
+        return widenCount;
+    }
+
+    long getRegionArea() {
+        return (long) regionWidth * regionHeight;
+    }
+
+    long memoryBytes() {
+        return workspace == null ? 0 : workspace.memoryBytes();
+    }
+
+    // 沿路径按边权累加总代价（与 PixelGraph.pathCost 相同的算法）
+    double pathCost(long[] path) {
+        int width = map.getWidth();
+        double total = 0;
+        for (int i = 1; i < path.length; i++) {
+            int x = (int) (path[i] % width), y = (int) (path[i] / width);
+            boolean diagonal = x != path[i - 1] % width && y != path[i - 1] / width;
+            float cost = PixelGraph.baseCost(map.gradient(x, y));
+            total += diagonal ? cost * DIAGONAL : cost;
+        }
+        return total;
+    }
+
+    private long[] search(int sx, int sy, int tx, int ty) {
+        int area = regionWidth * regionHeight;
+        if (workspace == null || workspace.dist.length < area) {
+            workspace = null; // 先释放旧缓冲区再分配
+            workspace = new SearchWorkspace(area);
+        }
+        SearchWorkspace ws = workspace;
+        IndexedMinHeap heap = ws.heap;
+        float[] dist = ws.dist;
+        int[] pred = ws.pred;
+        int rw = regionWidth, rh = regionHeight;
+        int localSource = (sy - y0) * rw + sx - x0;
+        int localTarget = (ty - y0) * rw + tx - x0;
+
+        ws.reset();
+        ws.reach(localSource, 0f, -1);
+        heap.insert(localSource, 0f);
+
+        while (!heap.isEmpty()) {
+            float d = heap.minKey();
+            int u = heap.delMin();
+            settledCount++;
+            if (u == localTarget) {
+                int[] local = ws.pathTo(localSource, localTarget);
+                long[] path = new long[local.length];
+                for (int i = 0; i < local.length; i++) {
+                    path[i] = (long) (local[i] / rw + y0) * map.getWidth() + local[i] % rw + x0;
+                }
+                return path;
+            }
+
+            int lx = u % rw;
+            int ly = u / rw;
+            for (int i = 0; i < PixelGraph.DIRECTIONS; i++) {
+                int nx = lx + PixelGraph.DX[i];
+                int ny = ly + PixelGraph.DY[i];
+                if (nx < 0 || nx >= rw || ny < 0 || ny >= rh) continue; // 区域之外
+                int v = ny * rw + nx;
+                // 与 buildGraph 相同：终点的基础代价，对角线方向乘 sqrt(2)
+                float cost = PixelGraph.baseCost(gradient(nx + x0, ny + y0));
+                if (PixelGraph.DX[i] != 0 && PixelGraph.DY[i] != 0) cost = cost * DIAGONAL;
+                float newDist = d + cost;
+                if (!ws.reached(v)) {
+                    ws.reach(v, newDist, u);
+                    heap.insert(v, newDist);
+                } else if (newDist < dist[v]) {
+                    dist[v] = newDist;
+                    pred[v] = u;
+                    heap.decreaseKey(v, newDist);
+                }
+            }
+        }
+        return new long[0];
+    }
+
+    private float gradient(int x, int y) {
+        int id = map.tileId(x, y);
+        if (id != lastTileId) {
+            lastTile = map.tile(id);
+            lastTileId = id;
+        }
+        return lastTile[map.local(x, y)];
+    }
+
+    // 路径上是否有像素落在区域边界上（与图像边界重合的那几条边不算）
+    private boolean touchesInnerBorder(long[] path) {
+        int width = map.getWidth(), height = map.getHeight();
+        int x1 = x0 + regionWidth - 1;
+        int y1 = y0 + regionHeight - 1;
+        for (long p : path) {
+            int x = (int) (p % width), y = (int) (p / width);
+            if ((x == x0 && x0 > 0) || (x == x1 && x1 < width - 1)
+                    || (y == y0 && y0 > 0) || (y == y1 && y1 < height - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
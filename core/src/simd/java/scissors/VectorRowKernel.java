@@ -0,0 +1,82 @@
+package scissors;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// RowKernel 的向量版本，一次处理一整组 lane。需要 incubator 模块，core/pom.xml 中用单独的一次编译
+// （带 --add-modules jdk.incubator.vector）把它编进同一个 jar。
+// 运行时同样加 --add-modules jdk.incubator.vector，否则 RowKernel.create() 退回标量版本
+class VectorRowKernel implements RowKernel {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    // 每个线程一份纵向和缓冲区（同一个实例被多个条带任务并发使用）
+    private final ThreadLocal<int[]> columnSums = ThreadLocal.withInitial(() -> new int[0]);
+
+    // 可分离：先算每列的纵向和 v = above + 2·row + below，再在横向上做 v[x-1] + 2·v[x] + v[x+1]
+    @Override
+    public void blurRow(int[] above, int[] row, int[] below, int[] out, int width) {
+        int[] v = columnSums.get();
+        if (v.length < width) {
+            v = new int[width];
+            columnSums.set(v);
+        }
+        int step = INTS.length();
+        int x = 0;
+        for (; x + step <= width; x += step) {
+            IntVector.fromArray(INTS, above, x)
+                    .add(IntVector.fromArray(INTS, row, x).lanewise(VectorOperators.LSHL, 1))
+                    .add(IntVector.fromArray(INTS, below, x))
+                    .intoArray(v, x);
+        }
+        for (; x < width; x++) {
+            v[x] = above[x] + 2 * row[x] + below[x];
+        }
+
+        x = 1;
+        for (; x + step <= width - 1; x += step) {
+            IntVector.fromArray(INTS, v, x - 1)
+                    .add(IntVector.fromArray(INTS, v, x).lanewise(VectorOperators.LSHL, 1))
+                    .add(IntVector.fromArray(INTS, v, x + 1))
+                    .add(8)
+                    .lanewise(VectorOperators.ASHR, 4)
+                    .intoArray(out, x);
+        }
+        for (; x < width - 1; x++) {
+            out[x] = (v[x - 1] + 2 * v[x] + v[x + 1] + 8) >> 4; // 尾部
+        }
+    }
+
+    @Override
+    public float gradientRow(int[] p0, int[] p1, int[] p2, float[] Ix, float[] Iy, float[] G, int base, int width) {
+        int step = Math.min(INTS.length(), FLOATS.length());
+        float max = 0;
+        int x = 1;
+        if (INTS.length() == FLOATS.length()) {
+            FloatVector vmax = FloatVector.zero(FLOATS);
+            for (; x + step <= width - 1; x += step) {
+                IntVector l0 = IntVector.fromArray(INTS, p0, x - 1), r0 = IntVector.fromArray(INTS, p0, x + 1);
+                IntVector l1 = IntVector.fromArray(INTS, p1, x - 1), r1 = IntVector.fromArray(INTS, p1, x + 1);
+                IntVector l2 = IntVector.fromArray(INTS, p2, x - 1), r2 = IntVector.fromArray(INTS, p2, x + 1);
+                IntVector c0 = IntVector.fromArray(INTS, p0, x), c2 = IntVector.fromArray(INTS, p2, x);
+                IntVector ix = r0.sub(l0).add(r2.sub(l2)).mul(3).add(r1.sub(l1).mul(10));
+                IntVector iy = l2.sub(l0).add(r2.sub(r0)).mul(3).add(c2.sub(c0).mul(10));
+                FloatVector fx = (FloatVector) ix.convert(VectorOperators.I2F, 0);
+                FloatVector fy = (FloatVector) iy.convert(VectorOperators.I2F, 0);
+                FloatVector g = fx.mul(fx).add(fy.mul(fy)).sqrt();
+                fx.intoArray(Ix, base + x);
+                fy.intoArray(Iy, base + x);
+                g.intoArray(G, base + x);
+                vmax = vmax.max(g);
+            }
+            max = vmax.reduceLanes(VectorOperators.MAX);
+        }
+        return Math.max(max, ScalarRowKernel.gradient(p0, p1, p2, Ix, Iy, G, base, x, width));
+    }
+
+    @Override
+    public String name() {
+        return "Vector";
+    }
+}
@@ -1,11 +1,11 @@
+package scissors;
+
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.dnd.*;
 import java.awt.event.*;
-import java.awt.geom.Area;
-import java.awt.geom.GeneralPath;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -14,23 +14,30 @@ import java.util.List;
 
 
 public class IntelligentScissorsGUI extends JFrame {
+    private static final long serialVersionUID = 1L;
     private IntelligentScissorsPart1 processor;
     private BufferedImage originalImage;
     private BufferedImage gradientImage;
     private JLabel imageLabel;
-    private List<Node> seedNodes; // 存储多个种子点
-    private List<List<Node>> paths; // 存储路径段
+    private List<Integer> seedNodes; // 存储多个种子点（像素下标 y * width + x）
+    private List<int[]> paths; // 存储路径段（像素下标序列）
+    private int[] hoverPath; // 最后一个种子到鼠标位置的临时路径
+    private PathService pathService; // 后台展开种子树
+    private final LatencyStats eventLatency = new LatencyStats(); // 鼠标事件处理耗时
     private boolean showGradient = false;
     private boolean fitWindow = true; // 默认适应窗口
     private double scaleX = 1.0, scaleY = 1.0; // 缩放比例
     private boolean isDragging = true; // 控制鼠标移动事件的标志
     private boolean cursorSnapEnabled = false;  // 控制是否启用 Cursor Snap
     private boolean pathCoolingEnabled = false; //是否启用 path cooling
-    private List<Node> previousPath = new ArrayList<>(); // 上一条路径
+    private int[] previousPath = new int[0]; // 上一条路径
     private int stableCounter = 0;                 // 连续稳定次数
     private final int STABILITY_THRESHOLD = 22;    // 稳定次数阈值
     private int displayWidth; // 图像显示宽度
     private int displayHeight; // 图像显示高度
+    // 代价图缓存目录，可用 -Dscissors.cacheDir 指定；总大小上限用 -Dscissors.costMapCacheMb 指定（默认 4 GB，按 LRU 淘汰）
+    private static final File COST_MAP_CACHE_DIR = new File(System.getProperty("scissors.cacheDir",
+            System.getProperty("user.home") + File.separator + ".intelligent-scissors" + File.separator + "cache"));
 
 
     public IntelligentScissorsGUI() {
@@ -66,24 +73,25 @@ public class IntelligentScissorsGUI extends JFrame {
                 g2d.setStroke(new BasicStroke(2));
                 // 绘制所有路径段
                 g2d.setColor(Color.RED);
-                for (List<Node> path : paths) {
-                    if (path != null && !path.isEmpty()) {
-                        for (int i = 1; i < path.size(); i++) {
-                            Node n1 = path.get(i - 1);
-                            Node n2 = path.get(i);
-                            int x1 = (int) (n1.x * scaleX);
-                            int y1 = (int) (n1.y * scaleY);
-                            int x2 = (int) (n2.x * scaleX);
-                            int y2 = (int) (n2.y * scaleY);
+                int imageWidth = originalImage.getWidth();
+                List<int[]> drawn = new ArrayList<>(paths);
+                drawn.add(hoverPath);
+                for (int[] path : drawn) {
+                    if (path != null && path.length > 0) {
+                        for (int i = 1; i < path.length; i++) {
+                            int x1 = (int) (path[i - 1] % imageWidth * scaleX);
+                            int y1 = (int) (path[i - 1] / imageWidth * scaleY);
+                            int x2 = (int) (path[i] % imageWidth * scaleX);
+                            int y2 = (int) (path[i] / imageWidth * scaleY);
                             g2d.drawLine(x1, y1, x2, y2);
                         }
                     }
                 }
                 // 绘制种子点
                 g2d.setColor(Color.GREEN);
-                for (Node seed : seedNodes) {
-                    int x = (int) (seed.x * scaleX);
-                    int y = (int) (seed.y * scaleY);
+                for (int seed : seedNodes) {
+                    int x = (int) (seed % imageWidth * scaleX);
+                    int y = (int) (seed / imageWidth * scaleY);
                     g2d.fillOval(x - 3, y - 3, 6, 6);
                 }
             }
@@ -99,6 +107,7 @@ public class IntelligentScissorsGUI extends JFrame {
             public void drop(DropTargetDropEvent dtde) {
                 try {
                     dtde.acceptDrop(DnDConstants.ACTION_COPY);
+                    @SuppressWarnings("unchecked") // javaFileListFlavor 的数据约定为 List<File>
                     List<File> files = (List<File>) dtde.getTransferable().getTransferData(DataFlavor.javaFileListFlavor);
                     if (!files.isEmpty()) {
                         File file = files.get(0);
@@ -151,34 +160,7 @@ public class IntelligentScissorsGUI extends JFrame {
         JButton saveButton = new JButton("Save Path");
         saveButton.addActionListener(e -> {
             if (!paths.isEmpty()) {
-                int width = originalImage.getWidth();
-                int height = originalImage.getHeight();
-                BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-                Graphics2D g2d = output.createGraphics();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                g2d.setColor(Color.BLACK);
-                g2d.fillRect(0, 0, width, height);
-                GeneralPath combinedPath = new GeneralPath();
-                boolean started = false;
-                for (List<Node> path : paths) {
-                    if (path != null && !path.isEmpty()) {
-                        if (!started) {
-                            combinedPath.moveTo(path.get(0).x, path.get(0).y);
-                            started = true;
-                        }
-                        for (int i = 1; i < path.size(); i++) {
-                            Node node = path.get(i);
-                            combinedPath.lineTo(node.x, node.y);
-                        }
-                    }
-                }
-                combinedPath.closePath();
-                Area clipArea = new Area(combinedPath);
-                g2d.setClip(clipArea);
-                g2d.drawImage(originalImage, 0, 0, null);
-                g2d.setClip(null);
-                g2d.dispose();
+                BufferedImage output = MaskRenderer.render(originalImage, paths);
                 File outputFile = new File("output.png");
                 if (outputFile.exists()) {
                     outputFile.delete();
@@ -231,6 +213,18 @@ public class IntelligentScissorsGUI extends JFrame {
         });
         toolbar.add(saveButton);
 
+        JButton undoButton = new JButton("Undo");
+        undoButton.addActionListener(e -> undoSeed());
+        toolbar.add(undoButton);
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo");
+        getRootPane().getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                undoSeed();
+            }
+        });
+
         JCheckBox snapCheckBox = new JCheckBox("Cursor Snap");//表示一个开关状态(启用 / 禁用 边缘吸附)
         snapCheckBox.addActionListener(e -> {
             cursorSnapEnabled = snapCheckBox.isSelected();
@@ -247,15 +241,19 @@ public class IntelligentScissorsGUI extends JFrame {
 
 
 
-        // 鼠标事件
+        // 鼠标事件：路径计算都交给 pathService 的后台线程，这里只读取已经算好的结果
         imageLabel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                long eventStart = System.nanoTime();
                 if (processor != null && originalImage != null) {
                     if (e.getButton() == MouseEvent.BUTTON3) { // 右键重置
+                        pathService.reset(); // 立即作废后台尚未完成的展开
                         seedNodes.clear();
                         paths.clear();
+                        hoverPath = null;
                         imageLabel.repaint();
+                        System.out.println("Event latency: " + eventLatency);
                     } else if (e.getButton() == MouseEvent.BUTTON1) { // 左键添加种子点
                         // 获取鼠标坐标并转换为原始图像坐标
                         int x = (int) (e.getX() / scaleX);
@@ -269,109 +267,83 @@ public class IntelligentScissorsGUI extends JFrame {
                         // 启用 Cursor Snap，调整到最强边缘点
                         if (cursorSnapEnabled) {
                             System.out.println("Activate cursor snap...");
-                            int[] snapped = processor.findStrongestEdgeInNeighborhood(x, y, 25);
+                            int[] snapped = processor.findStrongestEdgeRangeMax(x, y, 25);
                             x = snapped[0];
                             y = snapped[1];
                         }
 
                         // 创建新种子点
-                        Node newSeed = processor.getGraph()[y][x];
+                        int newSeed = processor.getGraph().index(x, y);
                         seedNodes.add(newSeed);
 
                         if (e.getClickCount() >= 2) { // 双击闭合路径
                             System.out.println("Double-click: Closing path...");
                             if (seedNodes.size() >= 2) {
-                                Node first = seedNodes.get(0);
-                                Node last = seedNodes.get(seedNodes.size() - 1);
-                                // 使用吸附点计算闭合路径
-                                List<Node> closingPath = processor.computeShortestPath(last.x, last.y, first.x, first.y);
-                                if (!closingPath.isEmpty()) {
-                                    paths.add(closingPath);
-                                }
-                                imageLabel.repaint();
+                                int first = seedNodes.get(0);
+                                int seedIndex = seedNodes.size() - 1;
                                 isDragging = false;
-                                saveButton.doClick();
+                                hoverPath = null;
+                                // 使用吸附点计算闭合路径：以最后一个种子为根的树回溯到第一个种子
+                                pathService.placeSeed(newSeed, null);
+                                pathService.requestPath(first, closingPath -> {
+                                    if (!isCurrentSeed(seedIndex, newSeed)) return; // 闭合前已撤销
+                                    if (closingPath.length > 0) {
+                                        paths.add(closingPath);
+                                    }
+                                    imageLabel.repaint();
+                                    saveButton.doClick();
+                                });
                             }
                         } else {
-                            // 单击：添加路径到上一个种子点
-                            if (seedNodes.size() >= 2) {
-                                Node prevSeed = seedNodes.get(seedNodes.size() - 2);
-                                List<Node> path = processor.computeShortestPath(prevSeed.x, prevSeed.y, newSeed.x, newSeed.y);
-                                if (!path.isEmpty()) {
+                            // 单击：后台先在上一个种子的树上求出到新种子的一段，再以新种子为根继续展开
+                            int seedIndex = seedNodes.size() - 1;
+                            pathService.placeSeed(newSeed, path -> {
+                                // 结果到达前这个种子已被撤销时丢弃
+                                if (path.length > 0 && isCurrentSeed(seedIndex, newSeed)) {
                                     paths.add(path);
                                 }
-                            }
+                                imageLabel.repaint();
+                            });
+                            hoverPath = null;
                             imageLabel.repaint();
                         }
                         System.out.println("Seed added: (" + x + ", " + y + ")");
                     }
                 }
+                eventLatency.record(System.nanoTime() - eventStart);
             }
         });
         imageLabel.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
+                long eventStart = System.nanoTime();
                 if (processor != null && originalImage != null && !seedNodes.isEmpty() && isDragging) {
                     int x = (int) (e.getX() / scaleX);
                     int y = (int) (e.getY() / scaleY);
 
-                    if (x < 0 || x >= originalImage.getWidth() || y < 0 || y >= originalImage.getHeight()) {
-                        return;
-                    }
-
-                    // 启用 Cursor Snap，调整到最强边缘点
-                    if (cursorSnapEnabled) {
-                        int[] adjusted = processor.findStrongestEdgeInNeighborhood(x, y, 25);
-                        x = adjusted[0];
-                        y = adjusted[1];
-                    }
-
-                    // 计算从最后一个种子点到吸附点的临时路径
-                    Node lastSeed = seedNodes.get(seedNodes.size() - 1);
-                    List<Node> tempPath = processor.computeShortestPath(lastSeed.x, lastSeed.y, x, y);
-
-                    List<List<Node>> tempPaths = new ArrayList<>(paths);
-                    if (!tempPaths.isEmpty()) {
-                        tempPaths.remove(tempPaths.size() - 1);
-                    }
-                    tempPaths.add(tempPath);
-
-                    // 绘制
-                    imageLabel.repaint();
-
-                    paths.clear();
-                    paths.addAll(tempPaths.subList(0, tempPaths.size() - 1));
-                    if (!tempPath.isEmpty()) {
-                        paths.add(tempPath);
-                    }
+                    // 图像外的移动不更新临时路径，但仍计入事件耗时并更新标题栏
+                    if (x >= 0 && x < originalImage.getWidth() && y >= 0 && y < originalImage.getHeight()) {
+                        // 启用 Cursor Snap，调整到最强边缘点
+                        if (cursorSnapEnabled) {
+                            int[] adjusted = processor.findStrongestEdgeRangeMax(x, y, 25);
+                            x = adjusted[0];
+                            y = adjusted[1];
+                        }
 
-                    //path cooling
-                    if (pathCoolingEnabled && tempPath != null && !tempPath.isEmpty()) {
-                        int stableLength = 30; // 前多少个点必须完全一致才认为是“稳定”
-
-                        if (isPathStable(previousPath, tempPath, stableLength)) {
-                            stableCounter++;
-                            if (stableCounter >= STABILITY_THRESHOLD) {
-                                // 冻结路径，将当前路径末尾变成新的种子点
-                                Node newSeed = tempPath.get(tempPath.size() - 1);
-                                seedNodes.add(newSeed);
-                                paths.add(new ArrayList<>(tempPath)); // 保存该段路径
-                                previousPath.clear();
-                                stableCounter = 0;
-                                System.out.println("Path frozen at: (" + newSeed.x + ", " + newSeed.y + ")");
-                            }
-                        } else {
-                            // 路径不稳定则重置
-                            stableCounter = 0;
-                            previousPath = new ArrayList<>(tempPath);
+                        // 从最后一个种子点到吸附点的临时路径：已算好就直接显示，
+                        // 否则后台展开到该点后通过 hover listener 回调 updateHoverPath
+                        int[] tempPath = pathService.tryPathTo(processor.getGraph().index(x, y));
+                        if (tempPath != null) {
+                            updateHoverPath(tempPath);
                         }
                     }
-
                 }
-            // 更新标题栏坐标
+                eventLatency.record(System.nanoTime() - eventStart);
+                // 更新标题栏坐标和事件处理耗时
                 int x = (int) (e.getX() / scaleX);
                 int y = (int) (e.getY() / scaleY);
-                setTitle("Intelligent Scissors - (" + x + ", " + y + ")");
+                setTitle(String.format("Intelligent Scissors - (%d, %d)  event %.2f ms",
+                        x, y, eventLatency.getLastNanos() / 1e6));
             }
         });
 
@@ -387,15 +359,77 @@ public class IntelligentScissorsGUI extends JFrame {
         });
     }
 
+    // 显示新的临时路径，并在启用 path cooling 时检测是否需要冻结
+    private void updateHoverPath(int[] tempPath) {
+        if (seedNodes.isEmpty() || !isDragging) return;
+        hoverPath = tempPath;
+        imageLabel.repaint();
+
+        //path cooling
+        if (pathCoolingEnabled && tempPath != null && tempPath.length > 0) {
+            int stableLength = 30; // 前多少个点必须完全一致才认为是“稳定”
+
+            if (isPathStable(previousPath, tempPath, stableLength)) {
+                stableCounter++;
+                if (stableCounter >= STABILITY_THRESHOLD) {
+                    // 冻结路径，将当前路径末尾变成新的种子点
+                    PixelGraph graph = processor.getGraph();
+                    int newSeed = tempPath[tempPath.length - 1];
+                    seedNodes.add(newSeed);
+                    paths.add(tempPath.clone()); // 保存该段路径，不必再让后台重算
+                    hoverPath = null;
+                    pathService.placeSeed(newSeed, null);
+                    previousPath = new int[0];
+                    stableCounter = 0;
+                    System.out.println("Path frozen at: (" + graph.x(newSeed) + ", " + graph.y(newSeed) + ")");
+                }
+            } else {
+                // 路径不稳定则重置
+                stableCounter = 0;
+                previousPath = tempPath.clone();
+            }
+        }
+    }
+
+    // 撤销最后一个种子和通向它的一段路径（闭合后撤销先去掉闭合段），回到前一个种子继续拖动。
+    // 前一个种子的树已展开完毕时仍在 SeedTreeCache 中，PathService 直接恢复，不必重新搜索
+    private void undoSeed() {
+        if (processor == null || seedNodes.isEmpty()) return;
+        seedNodes.remove(seedNodes.size() - 1);
+        while (paths.size() > Math.max(0, seedNodes.size() - 1)) {
+            paths.remove(paths.size() - 1);
+        }
+        hoverPath = null;
+        previousPath = new int[0];
+        stableCounter = 0;
+        if (seedNodes.isEmpty()) {
+            pathService.reset();
+        } else {
+            isDragging = true;
+            pathService.placeSeed(seedNodes.get(seedNodes.size() - 1), null);
+        }
+        SeedTreeCache cache = processor.getSeedTreeCache();
+        System.out.printf("Undo: %d seeds left, seed tree cache hits=%d misses=%d evictions=%d (%.1f MB)%n",
+                seedNodes.size(), cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.residentBytes() / 1e6);
+        imageLabel.repaint();
+    }
+
+    // seedNodes 的第 index 个种子是否仍是 seed（没有被撤销）
+    private boolean isCurrentSeed(int index, int seed) {
+        return index < seedNodes.size() && seedNodes.get(index) == seed;
+    }
+
+    public LatencyStats getEventLatency() {
+        return eventLatency;
+    }
+
     // path cooling detect stable path
-    private boolean isPathStable(List<Node> path1, List<Node> path2, int length) {
+    private boolean isPathStable(int[] path1, int[] path2, int length) {
         if (path1 == null || path2 == null) return false;
-        if (path1.size() < length || path2.size() < length) return false;
+        if (path1.length < length || path2.length < length) return false;
 
         for (int i = 0; i < length; i++) {
-            Node n1 = path1.get(i);
-            Node n2 = path2.get(i);
-            if (n1.x != n2.x || n1.y != n2.y) return false;
+            if (path1[i] != path2[i]) return false;
         }
         return true;
     }
@@ -409,9 +443,21 @@ public class IntelligentScissorsGUI extends JFrame {
 
     private void loadImage(File file) {
         try {
-            originalImage = ImageIO.read(file);
-            processor = new IntelligentScissorsPart1(file.getAbsolutePath());
+            LoadedImage loaded = ImageLoader.defaultLoader().load(file); // 解码一次，显示和处理共用
+            System.out.printf("Decoded with %s in %.1f ms%n", loaded.backend, loaded.decodeNanos / 1e6);
+            originalImage = loaded.image;
+            processor = new IntelligentScissorsPart1(loaded);
+            processor.setCostMapCacheDir(COST_MAP_CACHE_DIR); // 重复打开同一幅图像时直接读取缓存的代价图
+            processor.setEdgeCostMode(EdgeCostMode.LAZY);    // 不预先建图，边权在后台展开种子树时现算
+            processor.setPyramidLevels(0);                   // GUI 不做金字塔查询
             processor.process();
+            System.out.println(processor.describeStages());
+            if (pathService != null) {
+                pathService.shutdown();
+            }
+            pathService = new PathService(processor.getGraph(), processor.getSeedTreeCache(), SwingUtilities::invokeLater);
+            pathService.setHoverListener(this::updateHoverPath);
+            hoverPath = null;
             gradientImage = processor.getGradientImage();
             fitWindow = true;
             updateImageDisplay();